@@ -0,0 +1,47 @@
+package editor.model;
+
+/**
+ * lineID 기반 연산의 문서 크기별 op 지연 시간 측정 (main으로 실행, src/bench는 bench profile에서만 컴파일됨)
+ * 문서 끝 라인을 대상으로 하므로 라인을 순서대로 찾으면 크기에 비례해서 느려짐
+ * 실행 : mvn -Pbench test-compile exec:java -Dexec.mainClass=editor.model.DocumentModelLatencyBenchmark
+ */
+public class DocumentModelLatencyBenchmark {
+    private static final int[] SIZES = {1_000, 10_000, 100_000, 1_000_000};
+    private static final int OPS = 200_000;
+
+    public static void main(String[] args) {
+        System.out.printf("%10s %14s %14s %14s %14s%n", "lines", "updateLineAt", "insertTextAt", "lock+release", "getLine");
+        double first = 0, last = 0;
+        for (int size : SIZES) {
+            DocumentModel model = new DocumentModel();
+            for (int i = 1; i < size; i++) model.addNewLine();
+            long target = model.getLineAt(size - 1).getLineID();
+            model.acquireLock(target, "A");
+
+            // 두 번 돌려서 두 번째 결과만 사용 (JIT warm-up)
+            double update = 0, insert = 0, lock = 0, get = 0;
+            for (int round = 0; round < 2; round++) {
+                update = measure(() -> model.updateLineAt(target, "x", "A"));
+                insert = measure(() -> {
+                    model.insertTextAt(target, "y", 0);
+                    model.forceDeleteText(target, 0, 1);
+                }) / 2;
+                lock = measure(() -> {
+                    model.releaseLock(target, "A");
+                    model.acquireLock(target, "A");
+                }) / 2;
+                get = measure(() -> model.getLine(target));
+            }
+            System.out.printf("%10d %11.1f ns %11.1f ns %11.1f ns %11.1f ns%n", size, update, insert, lock, get);
+            if (first == 0) first = update;
+            last = update;
+        }
+        System.out.printf("updateLineAt %d lines / %d lines : %.2fx%n", SIZES[SIZES.length - 1], SIZES[0], last / first);
+    }
+
+    private static double measure(Runnable op) {
+        long start = System.nanoTime();
+        for (int i = 0; i < OPS; i++) op.run();
+        return (System.nanoTime() - start) / (double) OPS;
+    }
+}
@@ -0,0 +1,68 @@
+package editor.model;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * GLOBAL / STRIPED 동기화 방식의 다중 스레드 처리량 비교 (main으로 실행, src/bench는 bench profile에서만 컴파일됨)
+ * 스레드마다 자기가 lock을 가진 라인 하나를 1초 동안 updateLineAt으로 고침
+ * STRIPED가 이기려면 코어가 여러 개여야 함, 실행한 머신의 코어 수를 같이 출력
+ * 실행 : mvn -Pbench test-compile exec:java -Dexec.mainClass=editor.model.DocumentModelThroughputBenchmark
+ */
+public class DocumentModelThroughputBenchmark {
+    private static final int[] THREADS = {1, 2, 4, 8};
+    private static final long RUN_NANOS = 1_000_000_000L;
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("cores: " + Runtime.getRuntime().availableProcessors());
+        for (ConcurrencyMode mode : ConcurrencyMode.values()) {
+            StringBuilder row = new StringBuilder(String.format("%-8s", mode));
+            for (int threads : THREADS) {
+                DocumentModel model = new DocumentModel(mode);
+                for (int i = 1; i < 10_000; i++) model.addNewLine();
+                long[] lines = new long[threads];
+                for (int t = 0; t < threads; t++) {
+                    lines[t] = model.getLineAt(100 + t * 1000).getLineID();
+                    model.acquireLock(lines[t], "c" + t);
+                }
+                run(model, lines); // warm-up
+                row.append(String.format(" %d thr %6.2f Mops/s |", threads, run(model, lines) / 1e6));
+            }
+            System.out.println(row);
+        }
+    }
+
+    // 1초 동안 처리한 연산 수
+    private static long run(DocumentModel model, long[] lines) throws InterruptedException {
+        int threads = lines.length;
+        AtomicLong ops = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            long lineID = lines[t];
+            String clientID = "c" + t;
+            executor.submit(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                String[] contents = {"abc", "abcd", "hello world"};
+                long deadline = System.nanoTime() + RUN_NANOS;
+                long n = 0;
+                while (System.nanoTime() < deadline) {
+                    for (int k = 0; k < 100; k++) model.updateLineAt(lineID, contents[k % 3], clientID);
+                    n += 100;
+                }
+                ops.addAndGet(n);
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(RUN_NANOS / 1_000_000 + 5_000, TimeUnit.MILLISECONDS);
+        return ops.get();
+    }
+}
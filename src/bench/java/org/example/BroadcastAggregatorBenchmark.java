@@ -0,0 +1,105 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import editor.model.DocumentStorage;
+import org.example.dto.EventContent;
+import org.example.util.WireCodecs;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * broadcast 방식별 프레임 수 / payload 비교 (main으로 실행, src/bench는 bench profile에서만 컴파일됨)
+ * client 스레드마다 자기 라인에 일정 간격으로 insert_text 연산을 넣는 가상 부하
+ * - before : 연산마다 ObjectMapper를 새로 만들어 프레임 하나씩 전송 (aggregator 이전 방식)
+ * - after  : BroadcastAggregator가 tick 동안 모은 연산을 프레임 하나로 전송
+ * 수신자 수만큼 곱해지는 건 두 방식 모두 같으므로 방 하나 기준으로 셈
+ * 실행 : mvn -Pbench test-compile exec:java -Dexec.mainClass=org.example.BroadcastAggregatorBenchmark
+ */
+public class BroadcastAggregatorBenchmark {
+    private static final int[] CLIENTS = {1, 8, 32};
+    private static final int OPS_PER_SECOND = 50; // client 하나당
+    private static final long RUN_MILLIS = 3_000;
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("broadcast-bench");
+        DocumentRoom room = new DocumentRoom("bench", "s", "g", dir.resolve("wal"), new DocumentStorage(dir.resolve("docs")));
+        for (int clients : CLIENTS) {
+            AtomicLong frames = new AtomicLong();
+            AtomicLong chars = new AtomicLong();
+            run(clients, op -> {
+                String frame = encodeWithNewMapper(op);
+                frames.incrementAndGet();
+                chars.addAndGet(frame.length());
+            });
+            print("before", clients, frames.getAndSet(0), chars.getAndSet(0));
+
+            OutboundPipeline pipeline = new OutboundPipeline();
+            BroadcastAggregator aggregator = new BroadcastAggregator((r, frame) -> {
+                frames.incrementAndGet();
+                chars.addAndGet(frame.length());
+            }, r -> WireCodecs.JSON, pipeline, () -> 0);
+            run(clients, op -> aggregator.submit(room, op));
+            aggregator.close();
+            pipeline.close();
+            print("after", clients, frames.get(), chars.get());
+        }
+        room.close();
+        System.exit(0);
+    }
+
+    // clients개 스레드가 RUN_MILLIS 동안 OPS_PER_SECOND 간격으로 연산 제출
+    private static void run(int clients, Consumer<EventContent> broadcast) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(clients);
+        long intervalNanos = 1_000_000_000L / OPS_PER_SECOND;
+        long end = System.nanoTime() + RUN_MILLIS * 1_000_000L;
+        for (int c = 0; c < clients; c++) {
+            String clientId = "client" + c;
+            long lineId = c + 1;
+            Thread t = new Thread(() -> {
+                int position = 0;
+                long next = System.nanoTime();
+                while (next < end) {
+                    broadcast.accept(EventContent.builder()
+                            .type("insert_text")
+                            .lineId(lineId)
+                            .position(position++)
+                            .content("a")
+                            .clientId(clientId)
+                            .build());
+                    next += intervalNanos;
+                    long sleep = next - System.nanoTime();
+                    if (sleep > 0) {
+                        try {
+                            Thread.sleep(sleep / 1_000_000L, (int) (sleep % 1_000_000L));
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+                done.countDown();
+            });
+            t.start();
+        }
+        done.await();
+    }
+
+    private static String encodeWithNewMapper(EventContent op) {
+        try {
+            return new ObjectMapper().writeValueAsString(op);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void print(String mode, int clients, long frames, long chars) {
+        double seconds = RUN_MILLIS / 1000.0;
+        System.out.printf("%-6s %2d clients : %8.1f frames/s, %10.1f chars/s%n",
+                mode, clients, frames / seconds, chars / seconds);
+    }
+}
@@ -9,14 +9,20 @@ import org.example.CMClientApp;
 // import lombok.Getter;
 
 import javax.swing.*;
+import javax.swing.text.AbstractDocument;
 import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
 import javax.swing.text.SimpleAttributeSet;
 import javax.swing.text.StyleConstants;
 import javax.swing.text.StyledDocument;
 import java.awt.*;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class DocumentClientController extends DocumentController {
     @Getter
@@ -31,13 +37,38 @@ public class DocumentClientController extends DocumentController {
     private long lockAcquiredLineID = -1L; // lock을 건 line ID
     /**
      * -- GETTER --
-     *  렌더링 중인지 체크용
+     *  렌더링 중인지 체크용 (모델 내용을 textArea에 올리는 중에 생긴 DocumentEvent는 사용자 입력이 아님)
      */
-    // @Getter
-    // private boolean suppressDocumentEvents = false;
+    @Getter
+    private boolean suppressDocumentEvents = false;
 
     private CMClientApp app;
 
+    /*
+     * 가상 화면 : 문서가 windowLines보다 길면 textArea에는 [viewBase, viewBase + viewLines) 구간만 올림
+     * textArea의 라인 번호 + viewBase = 문서 라인 index
+     * windowLines == 0 이면 항상 전체 문서를 올림
+     */
+    @Getter
+    @Setter
+    private int windowLines = Integer.getInteger("editor.view.window", 400);
+    @Getter
+    private int viewBase = 0;
+    @Getter
+    private int viewLines = 0;
+    // 커서가 있던 라인이 스크롤로 구간 밖으로 나가면 위치를 기억해뒀다가 돌아오면 복원 (-1: 없음)
+    private int parkedCaretLine = -1;
+    private int parkedCaretColumn = 0;
+
+    /*
+     * raw 뷰 / lock gutter에 아직 반영하지 않은 변경
+     * lock 이벤트나 내용 변경은 라인 ID만 모아뒀다가 flushRaw에서 해당 줄만 고침
+     * 구간이 바뀌거나 라인 수가 바뀌면 rawFull로 전체를 다시 그림
+     * CM 이벤트 스레드와 EDT에서 같이 쓰므로 rawDirtyLines로 동기화
+     */
+    private final Set<Long> rawDirtyLines = new HashSet<>();
+    private boolean rawFull = true;
+
     public DocumentClientController(DocumentModel model, String clientID, CMClientApp app) {
         super(model);
         this.clientID = clientID;
@@ -71,32 +102,28 @@ public class DocumentClientController extends DocumentController {
 
     /**
      * 전체 또는 특정 줄(render 인자 무시) 렌더링
+     * 가상 화면이면 현재 구간만 다시 올리고, lock을 건 라인이 구간 밖이면 그 라인이 가운데 오도록 구간을 옮김
      */
     public void render(long lineID, JTextArea textArea) {
         // 현재 커서 위치 저장
         int caretPosition = textArea.getCaretPosition();
-        int lockingLineOffset = -1;
 
-        // 렌더링
-        List<TextLine> lines = documentModel.getAllLines();
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < lines.size(); i++) {
-            if(lines.get(i).getLockClientID().equals(clientID)){
-                lockingLineOffset = i;
+        int lineCount = documentModel.getLineCount();
+        int lockingLineIndex = clientID == null ? -1 : documentModel.indexOf(documentModel.findLockLineIDByClientID(clientID));
+        int base = 0;
+        if (isVirtual(lineCount)) {
+            base = viewBase;
+            if (lockingLineIndex >= 0 && (lockingLineIndex < base || lockingLineIndex >= base + windowLines)) {
+                base = lockingLineIndex - windowLines / 2;
             }
-
-            sb.append(lines.get(i).getContent());
-            if (i < lines.size() - 1) sb.append("\n");
         }
-        textArea.setText(sb.toString());
+        parkedCaretLine = -1;
+        materialize(base, textArea);
 
-        // 락을 건 라인 위치로 커서를 이동
-        if (lockingLineOffset != -1) {
-            int offset = 0;
-            for (int i = 0; i < lockingLineOffset; i++) {
-                offset += lines.get(i).getContent().length() + 1; // +1 for '\n'
-            }
-            textArea.setCaretPosition(Math.min(offset, textArea.getDocument().getLength()));
+        // 락을 건 라인 위치로 커서를 이동 (시작 offset은 모델의 offset 인덱스로 O(log n))
+        if (lockingLineIndex >= viewBase && lockingLineIndex < viewBase + viewLines) {
+            int lockingLineOffset = documentModel.lineStartOffset(lockingLineIndex) - documentModel.lineStartOffset(viewBase);
+            textArea.setCaretPosition(Math.min(lockingLineOffset, textArea.getDocument().getLength()));
             return;
         }
 
@@ -111,26 +138,314 @@ public class DocumentClientController extends DocumentController {
         }
     }
 
+    private boolean isVirtual(int lineCount) {
+        return windowLines > 0 && lineCount > windowLines;
+    }
+
+    // textArea에 [base, base + windowLines) 구간(가상 화면이 아니면 전체)을 올림
+    private void materialize(int base, JTextArea textArea) {
+        int lineCount = documentModel.getLineCount();
+        int lines = isVirtual(lineCount) ? windowLines : lineCount;
+        base = Math.max(0, Math.min(base, lineCount - lines));
+
+        int textLength = documentModel.lineStartOffset(base + lines) - documentModel.lineStartOffset(base);
+        StringBuilder sb = new StringBuilder(textLength);
+        boolean first = true;
+        for (TextLine line : documentModel.lines().subList(base, base + lines)) {
+            if (!first) sb.append("\n");
+            first = false;
+            sb.append(line.getContent());
+        }
+        viewBase = base;
+        viewLines = lines;
+        suppressDocumentEvents = true;
+        try {
+            textArea.setText(sb.toString());
+        } finally {
+            suppressDocumentEvents = false;
+        }
+        markRawFull();
+    }
+
+    // 문서 라인 index의 textArea 안 시작 offset, 구간 밖이면 그 라인이 가운데 오도록 구간을 옮김
+    public int revealLine(int lineIndex, JTextArea textArea) {
+        if (lineIndex < viewBase || lineIndex >= viewBase + viewLines) {
+            materialize(lineIndex - windowLines / 2, textArea);
+        }
+        return toAreaOffset(documentModel.lineStartOffset(lineIndex));
+    }
+
+    // textArea offset ↔ 문서 전체 offset (구간이 바뀌어도 같은 글자를 가리키도록 변환할 때 사용)
+    public int toDocOffset(int areaOffset) {
+        return documentModel.lineStartOffset(viewBase) + areaOffset;
+    }
+
+    public int toAreaOffset(int docOffset) {
+        return Math.max(0, docOffset - documentModel.lineStartOffset(viewBase));
+    }
+
+    /**
+     * 스크롤 위치에 맞게 가상 화면 구간을 옮김 (firstVisible : 화면 맨 위 문서 라인, visibleRows : 보이는 줄 수)
+     * 보이는 부분이 구간 가장자리 margin 안으로 들어오면 보이는 부분이 가운데 오도록 다시 올림
+     * 커서 라인이 구간 밖으로 나가면 커서는 구간 안에 두고 원래 위치를 기억함 (revealCaret으로 복원)
+     * 구간을 옮겼으면 true
+     */
+    public boolean scrollWindow(int firstVisible, int visibleRows, JTextArea textArea) {
+        int lineCount = documentModel.getLineCount();
+        if (!isVirtual(lineCount)) return false;
+        int margin = Math.max(1, (windowLines - visibleRows) / 4);
+        boolean nearTop = viewBase > 0 && firstVisible - viewBase < margin;
+        boolean nearBottom = viewBase + viewLines < lineCount
+                && viewBase + viewLines - (firstVisible + visibleRows) < margin;
+        if (!nearTop && !nearBottom) return false;
+
+        int base = Math.max(0, Math.min(firstVisible - (windowLines - visibleRows) / 2, lineCount - windowLines));
+        if (base == viewBase) return false;
+
+        // 커서 위치를 (문서 라인, 칸)으로 기억
+        int caretLine = parkedCaretLine;
+        int caretColumn = parkedCaretColumn;
+        if (caretLine < 0) {
+            Element root = textArea.getDocument().getDefaultRootElement();
+            int caret = textArea.getCaretPosition();
+            int areaLine = root.getElementIndex(caret);
+            caretLine = viewBase + areaLine;
+            caretColumn = caret - root.getElement(areaLine).getStartOffset();
+        }
+
+        materialize(base, textArea);
+        placeCaret(caretLine, caretColumn, textArea);
+        return true;
+    }
+
+    /**
+     * 커서가 구간 밖에 기억돼 있으면 그 라인이 보이도록 구간을 옮기고 커서를 복원 (입력 전에 호출)
+     */
+    public boolean revealCaret(JTextArea textArea) {
+        if (parkedCaretLine < 0) return false;
+        int caretLine = parkedCaretLine;
+        materialize(caretLine - windowLines / 2, textArea);
+        placeCaret(caretLine, parkedCaretColumn, textArea);
+        return true;
+    }
+
+    private void placeCaret(int caretLine, int caretColumn, JTextArea textArea) {
+        parkedCaretLine = -1;
+        if (caretLine < viewBase || caretLine >= viewBase + viewLines) {
+            parkedCaretLine = caretLine;
+            parkedCaretColumn = caretColumn;
+            caretLine = caretLine < viewBase ? viewBase : viewBase + viewLines - 1;
+            caretColumn = 0;
+        }
+        Element line = textArea.getDocument().getDefaultRootElement().getElement(caretLine - viewBase);
+        textArea.setCaretPosition(Math.min(line.getStartOffset() + caretColumn, line.getEndOffset() - 1));
+    }
+
+    // lineID의 현재 위치 (없으면 -1), 원격 연산을 적용하기 전에 바뀔 라인 범위를 잡을 때 사용
+    public int indexOf(long lineID) {
+        return documentModel.indexOf(lineID);
+    }
+
+    /**
+     * 원격 연산이 바꾼 라인만 다시 그림 : 문서의 [from, from + removed) 라인이 [from, from + inserted) 라인으로 바뀐 경우
+     * 문서 전체를 다시 만들지 않고 textArea에서 해당 범위만 replace 하므로 비용은 바뀐 라인 길이에 비례
+     * 가상 화면이면 구간 위쪽 변경은 viewBase만 옮기고, 아래쪽 변경은 무시, 구간 경계에 걸치면 구간을 다시 올림
+     * 커서는 같은 라인/칸에 그대로 둠 (바뀐 범위 뒤에 있으면 늘어나거나 줄어든 라인 수만큼 이동)
+     * 화면 라인 수가 맞지 않으면(범위를 잘못 잡은 경우) 전체 렌더링으로 대신함
+     */
+    public void renderLines(int from, int removed, int inserted, JTextArea textArea) {
+        Document doc = textArea.getDocument();
+        Element root = doc.getDefaultRootElement();
+        int lineCount = documentModel.getLineCount();
+        int viewEnd = viewBase + viewLines;
+        boolean windowAtEnd = viewEnd == lineCount - inserted + removed;
+        if (from < 0 || root.getElementCount() != viewLines) {
+            render(-1, textArea);
+            return;
+        }
+        if (parkedCaretLine >= from + removed) {
+            parkedCaretLine += inserted - removed;
+        }
+        if (from + removed <= viewBase && viewBase > 0) {
+            viewBase += inserted - removed; // 구간 위에서 라인 수만 바뀜
+            return;
+        }
+        if (from > viewEnd || (from == viewEnd && !windowAtEnd)) {
+            return; // 구간 아래
+        }
+        if (from < viewBase || from + removed > viewEnd
+                || (!isVirtual(lineCount) && viewLines - removed + inserted != lineCount)) {
+            // 구간 경계에 걸침 → 같은 위치에서 구간을 다시 올림
+            int caret = textArea.getCaretPosition();
+            int areaLine = root.getElementIndex(caret);
+            int caretColumn = caret - root.getElement(areaLine).getStartOffset();
+            int caretLine = parkedCaretLine >= 0 ? parkedCaretLine : viewBase + areaLine;
+            materialize(viewBase, textArea);
+            placeCaret(caretLine, caretColumn, textArea);
+            return;
+        }
+        from -= viewBase;
+
+        // 커서 위치를 (라인, 칸)으로 기억
+        int caret = textArea.getCaretPosition();
+        int caretLine = root.getElementIndex(caret);
+        int caretColumn = caret - root.getElement(caretLine).getStartOffset();
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i < from + inserted; i++) {
+            if (i > from) sb.append('\n');
+            sb.append(documentModel.getLineAt(viewBase + i).getContent());
+        }
+
+        int start;
+        int end;
+        if (removed > 0) {
+            start = root.getElement(from).getStartOffset();
+            end = root.getElement(from + removed - 1).getEndOffset() - 1; // 줄바꿈 제외
+            if (inserted == 0) {
+                // 라인을 지우기만 하면 앞(마지막 라인이면) 또는 뒤의 줄바꿈도 같이 지움
+                if (from + removed < viewLines) {
+                    end++;
+                } else if (from > 0) {
+                    start--;
+                }
+            }
+        } else if (from < viewLines) {
+            start = end = root.getElement(from).getStartOffset();
+            sb.append('\n');
+        } else {
+            start = end = doc.getLength();
+            sb.insert(0, '\n');
+        }
+
+        suppressDocumentEvents = true;
+        try {
+            ((AbstractDocument) doc).replace(start, end - start, sb.toString(), null);
+        } catch (BadLocationException e) {
+            //noinspection CallToPrintStackTrace
+            e.printStackTrace();
+            render(-1, textArea);
+            return;
+        } finally {
+            suppressDocumentEvents = false;
+        }
+        viewLines += inserted - removed;
+        if (viewLines <= 0) {
+            render(-1, textArea); // 구간의 라인이 모두 지워짐
+            return;
+        }
+        if (inserted == removed) {
+            for (int i = from; i < from + inserted; i++) {
+                markRawDirty(documentModel.getLineAt(viewBase + i).getLineID());
+            }
+        } else {
+            markRawFull(); // 아래 줄이 밀리므로 전체
+        }
+
+        if (caretLine >= from + removed) {
+            caretLine += inserted - removed;
+        } else if (caretLine >= from + inserted) {
+            caretLine = Math.max(from + inserted - 1, 0); // 커서가 있던 라인이 지워짐
+        }
+        caretLine = Math.min(caretLine, root.getElementCount() - 1);
+        Element line = root.getElement(caretLine);
+        int newCaret = Math.min(line.getStartOffset() + caretColumn, line.getEndOffset() - 1);
+        if (newCaret != textArea.getCaretPosition()) {
+            textArea.setCaretPosition(newCaret);
+        }
+    }
+
     /**
      * Raw 뷰(락 상태 포함) 렌더링
      */
     public void renderRaw(JTextArea rightArea, JTextPane lockPane) {
-        List<TextLine> lines = documentModel.getAllLines();
+        synchronized (rawDirtyLines) {
+            rawDirtyLines.clear();
+            rawFull = false;
+        }
         StringBuilder sb = new StringBuilder();
-        for (TextLine line : lines) {
-            sb.append(line.getLineID())
-                    .append(": ")
-                    .append(line.getContent())
-                    .append(" [lock=")
-                    .append(line.isLocked())
-                    .append(", id=")
-                    .append(line.getLockClientID())
-                    .append("]\n");
+        for (TextLine line : visibleLines()) {
+            sb.append(rawRow(line)).append("\n");
         }
         rightArea.setText(sb.toString());
         renderLockPanel(lockPane);
     }
 
+    /**
+     * 모아둔 변경만 raw 뷰 / lock gutter에 반영 (EDT, 한 프레임에 한 번)
+     * 구간 밖 라인은 건너뛰고, 줄 수가 맞지 않거나 rawFull이면 전체 렌더링
+     */
+    public void flushRaw(JTextArea rightArea, JTextPane lockPane) {
+        List<Long> dirty;
+        synchronized (rawDirtyLines) {
+            if (!rawFull && rawDirtyLines.isEmpty()) return;
+            boolean full = rawFull
+                    || rightArea.getLineCount() != viewLines + 1
+                    || lockPane.getDocument().getDefaultRootElement().getElementCount() != viewLines + 1;
+            if (full) {
+                dirty = null;
+            } else {
+                dirty = new ArrayList<>(rawDirtyLines);
+                rawDirtyLines.clear();
+            }
+        }
+        if (dirty == null) {
+            renderRaw(rightArea, lockPane);
+            return;
+        }
+
+        for (long lineID : dirty) {
+            int row = documentModel.indexOf(lineID) - viewBase;
+            if (row < 0 || row >= viewLines) continue;
+            TextLine line = documentModel.getLineAt(viewBase + row);
+            replaceRow(rightArea.getDocument(), row, rawRow(line));
+            replaceRow(lockPane.getDocument(), row, String.valueOf(gutterRow(line)));
+        }
+    }
+
+    // row번째 줄 내용(줄바꿈 제외)을 text로 교체
+    private static void replaceRow(Document doc, int row, String text) {
+        Element line = doc.getDefaultRootElement().getElement(row);
+        int start = line.getStartOffset();
+        try {
+            ((AbstractDocument) doc).replace(start, line.getEndOffset() - 1 - start, text, null);
+        } catch (BadLocationException e) {
+            //noinspection CallToPrintStackTrace
+            e.printStackTrace();
+        }
+    }
+
+    // 내용이나 lock 상태가 바뀐 라인 (화면은 flushRaw에서 갱신)
+    public void markRawDirty(long lineID) {
+        synchronized (rawDirtyLines) {
+            if (!rawFull) rawDirtyLines.add(lineID);
+        }
+    }
+
+    public void markRawFull() {
+        synchronized (rawDirtyLines) {
+            rawFull = true;
+            rawDirtyLines.clear();
+        }
+    }
+
+    private static String rawRow(TextLine line) {
+        return line.getLineID() + ": " + line.getContent()
+                + " [lock=" + line.isLocked() + ", id=" + line.getLockClientID() + "]";
+    }
+
+    private static char gutterRow(TextLine line) {
+        String id = line.getLockClientID();
+        return id.isEmpty() ? ' ' : toCircled(id.charAt(0));
+    }
+
+    // textArea에 올라가 있는 구간의 라인 (가상 화면이 아니면 전체)
+    private List<TextLine> visibleLines() {
+        List<TextLine> lines = documentModel.lines();
+        int end = Math.min(viewBase + viewLines, lines.size());
+        return viewBase == 0 && end == lines.size() ? lines : lines.subList(Math.min(viewBase, end), end);
+    }
+
     private static char toCircled(char c){
         if('A'<=c && c<='Z') return (char)('\u24B6' + (c-'A'));   // Ⓐ~Ⓩ
         if('a'<=c && c<='z') return (char)('\u24D0' + (c-'a'));   // ⓐ~ⓩ
@@ -147,13 +462,11 @@ public class DocumentClientController extends DocumentController {
         StyleConstants.setAlignment(center, StyleConstants.ALIGN_CENTER);
         doc.setParagraphAttributes(0, 0, center, false);
 
-        this.getAllLines().forEach(line -> {
-            String id = line.getLockClientID();
-            char circled = id.isEmpty()? ' ' : toCircled(id.charAt(0));
-            try {
-                doc.insertString(doc.getLength(), circled + "\n", null);
-            } catch (BadLocationException ignored) {}
-        });
+        StringBuilder sb = new StringBuilder();
+        visibleLines().forEach(line -> sb.append(gutterRow(line)).append('\n'));
+        try {
+            doc.insertString(0, sb.toString(), null);
+        } catch (BadLocationException ignored) {}
     }
 
     /**
@@ -165,8 +478,9 @@ public class DocumentClientController extends DocumentController {
         int keyCode = e.getKeyCode();
         try {
             int caretPos = textArea.getCaretPosition();
-            int lineIndex = textArea.getLineOfOffset(caretPos);
-            List<TextLine> lines = documentModel.getAllLines();
+            int areaLine = textArea.getLineOfOffset(caretPos);
+            int lineIndex = viewBase + areaLine; // 문서 라인 index
+            List<TextLine> lines = documentModel.lines();
             if (lineIndex < 0 || lineIndex >= lines.size()) return false;
 
             TextLine currLine = lines.get(lineIndex);
@@ -175,7 +489,7 @@ public class DocumentClientController extends DocumentController {
             switch (keyCode) {
                 case KeyEvent.VK_ENTER: {
                     // 분할 위치 계산
-                    int lineStart = textArea.getLineStartOffset(lineIndex);
+                    int lineStart = textArea.getLineStartOffset(areaLine);
                     int offsetInLine = caretPos - lineStart;
                     String content = currLine.getContent();
                     String before = content.substring(0, offsetInLine);
@@ -187,8 +501,7 @@ public class DocumentClientController extends DocumentController {
 
                     // 락 이동
                     // documentModel.releaseLock(oldLineID, clientID);
-                    List<TextLine> updated = documentModel.getAllLines();
-                    TextLine newLine = updated.get(lineIndex + 1);
+                    TextLine newLine = documentModel.getLineAt(lineIndex + 1);
                     long newID = newLine.getLineID();
                     // documentModel.acquireLock(newID, clientID);
                     // app.requestServerLock(newID);
@@ -197,12 +510,12 @@ public class DocumentClientController extends DocumentController {
                     break;
                 }
                 case KeyEvent.VK_DELETE: {
-                    int lineStart = textArea.getLineStartOffset(lineIndex);
+                    int lineStart = textArea.getLineStartOffset(areaLine);
                     int offsetInLine = caretPos - lineStart;
-                    String content = currLine.getContent();
+                    int lineLength = currLine.length();
 
                     // 라인 끝에서 DELETE이고 다음 라인이 존재하는 경우
-                    if (offsetInLine >= content.length() && lineIndex < lines.size() - 1) {
+                    if (offsetInLine >= lineLength && lineIndex < lines.size() - 1) {
                         TextLine next = lines.get(lineIndex + 1);
                         long nextID = next.getLineID();
 
@@ -220,17 +533,15 @@ public class DocumentClientController extends DocumentController {
                         // 락은 현재 라인에 그대로 유지
                         selectedLineID = oldLineID;
                         setLockAcquiredLineID(documentModel.findLockLineIDByClientID(clientID));
-                    } else if (offsetInLine < content.length()) {
+                    } else if (offsetInLine < lineLength) {
                         // 라인 중간에서 DELETE: 커서 다음 글자 삭제
-                        String updated = content.substring(0, offsetInLine)
-                                + content.substring(offsetInLine + 1);
-                        documentModel.updateLineAt(oldLineID, updated, clientID);
+                        documentModel.deleteTextAt(oldLineID, offsetInLine, offsetInLine + 1, clientID);
                     }
                     // 마지막 라인 끝이거나 라인이 하나뿐이면 아무것도 하지 않음
                     break;
                 }
                 case KeyEvent.VK_BACK_SPACE: {
-                    int lineStart = textArea.getLineStartOffset(lineIndex);
+                    int lineStart = textArea.getLineStartOffset(areaLine);
                     int offsetInLine = caretPos - lineStart;
                     if (offsetInLine == 0 && lineIndex > 0) {
                         // 라인 맨 앞에서만 병합 로직 진입
@@ -252,10 +563,7 @@ public class DocumentClientController extends DocumentController {
                         setLockAcquiredLineID(documentModel.findLockLineIDByClientID(clientID)); // 이게 없으면 편집이 막힘
                     } else {
                         // 한 글자 삭제
-                        String curr = currLine.getContent();
-                        String updated = curr.substring(0, offsetInLine - 1)
-                                + curr.substring(offsetInLine);
-                        documentModel.updateLineAt(oldLineID, updated, clientID);
+                        documentModel.deleteTextAt(oldLineID, offsetInLine - 1, offsetInLine, clientID);
                     }
                     break;
                 }
@@ -276,11 +584,10 @@ public class DocumentClientController extends DocumentController {
     public void handleMouseClick(MouseEvent e, JTextArea textArea) {
         try {
             int pos = textArea.viewToModel(e.getPoint());
-            int lineIndex = textArea.getLineOfOffset(pos);
-            List<TextLine> lines = documentModel.getAllLines();
-            if (lineIndex < 0 || lineIndex >= lines.size()) return;
+            int lineIndex = viewBase + textArea.getLineOfOffset(pos);
+            if (lineIndex < 0 || lineIndex >= documentModel.getLineCount()) return;
 
-            long newID = lines.get(lineIndex).getLineID();
+            long newID = documentModel.getLineAt(lineIndex).getLineID();
             // documentModel.releaseLock(currentLineID, clientID);
             // if (documentModel.acquireLock(newID, clientID)) {
             //     currentLineID = newID;
@@ -293,26 +600,30 @@ public class DocumentClientController extends DocumentController {
     }
 
     /**
-     * UI 직접 타이핑 시 해당 줄을 모델에 업데이트
+     * UI 직접 타이핑 시 해당 줄을 모델에 업데이트 (lineIndex : textArea 라인 번호)
+     * 반영했으면 true (선택한 라인이 아니면 false → 호출한 쪽에서 화면을 되돌림)
      */
-    public void updateLineFromUI(int lineIndex, String content) {
-        List<TextLine> lines = documentModel.getAllLines();
-        if (lineIndex < 0 || lineIndex >= lines.size()) return;
+    public boolean updateLineFromUI(int areaLine, String content) {
+        int lineIndex = viewBase + areaLine;
+        if (lineIndex < 0 || lineIndex >= documentModel.getLineCount()) return false;
 
-        long lineID = lines.get(lineIndex).getLineID();
+        long lineID = documentModel.getLineAt(lineIndex).getLineID();
         // 오직 현재 락이 걸려 있는 줄만 업데이트
         if (lineID == selectedLineID) {
             // 락 상태나 clientID를 건드리지 않고 내용만 바꿔주는 메서드
             documentModel.forceUpdateContent(lineID, content);
+            markRawDirty(lineID);
+            return true;
         }
+        return false;
     }
 
     /**
-     * CaretListener 사용 시 호출:
-     * - 이전 줄 락 해제 → 새 줄 락 획득
+     * CaretListener 사용 시 호출 (문서 라인 index):
+     * - 이전 줄 락 해제 → 새 줄 락 획득 (커서가 멈춘 뒤 한 번만 요청)
      */
     public void moveLock(int oldLineIndex, int newLineIndex) {
-        List<TextLine> lines = documentModel.getAllLines();
+        List<TextLine> lines = documentModel.lines();
         /* if (oldLineIndex >= 0 && oldLineIndex < lines.size()) {
             // documentModel.releaseLock(lines.get(oldLineIndex).getLineID(), clientID);
         }
@@ -322,13 +633,20 @@ public class DocumentClientController extends DocumentController {
             selectedLineID = id;
         } */
         long lineID = lines.get(newLineIndex).getLineID(); // todo 여기서 lock 값이 바뀜
-        app.requestServerLock(lineID);
+        app.requestServerLockLater(lineID); // 커서가 멈춘 라인만 요청
         selectedLineID = lineID;
     }
 
     // 서버에서 lock 정보 업데이트 시 사용
     public void setLockInfoByServer(long lineID, LockStatus lock, String lockClientID) {
         this.documentModel.setLockInfoByServer(lineID, lock, lockClientID);
+        markRawDirty(lineID);
+    }
+
+    // textArea 라인 번호 기준 라인 조회 (가상 화면이면 viewBase만큼 더함)
+    @Override
+    public TextLine getTextLineByOffset(int offset) {
+        return documentModel.getLineAt(viewBase + offset);
     }
 
     public boolean isEditable() {
@@ -345,6 +663,9 @@ public class DocumentClientController extends DocumentController {
     }
 
     public void releaseLockByClientId(String clientId) {
-        this.documentModel.releaseLockByClientId(clientId);
+        long lineID = this.documentModel.findLockLineIDByClientID(clientId);
+        if (this.documentModel.releaseLockByClientId(clientId)) {
+            markRawDirty(lineID);
+        }
     }
 }
@@ -3,6 +3,7 @@ package editor.controller;
 import editor.model.DocumentModel;
 import editor.model.LockStatus;
 import editor.model.TextLine;
+import org.example.util.WireCodec;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,11 +15,16 @@ public abstract class DocumentController {
     }
 
     protected boolean isLineValid(long lineID) {
-        return lineID >= 0L && lineID < (long) documentModel.getAllLines().size();
+        return lineID >= 0L && lineID < (long) documentModel.getLineCount();
     }
 
+    // 복사 없는 읽기 전용 뷰
     public List<TextLine> getAllLines() {
-        return this.documentModel.getAllLines();
+        return this.documentModel.lines();
+    }
+
+    public int getLineCount() {
+        return this.documentModel.getLineCount();
     }
 
     /**
@@ -28,6 +34,10 @@ public abstract class DocumentController {
         documentModel.insertTextAt(lineID, content, pos);
     }
 
+    public void deleteText(long lineID, int start, int end) {
+        documentModel.forceDeleteText(lineID, start, end);
+    }
+
     public void editLine(long lineID, String content, String clientID) {
         documentModel.forceUpdateContent(lineID, content);
     }
@@ -36,8 +46,17 @@ public abstract class DocumentController {
         documentModel.insertLineAt(lineID, content, false, clientId);
     }
 
+    // 라인 index ↔ 글자 offset (모델 기준, O(log n))
+    public int getLineStartOffset(int index) {
+        return documentModel.lineStartOffset(index);
+    }
+
+    public int getLineIndexAtOffset(int offset) {
+        return documentModel.lineIndexAtOffset(offset);
+    }
+
     public TextLine getTextLineByOffset(int offset) {
-        return documentModel.getAllLines().get(offset);
+        return documentModel.getLineAt(offset);
     }
 
 //    public void insertLineBefore(long lineID) {
@@ -45,54 +64,20 @@ public abstract class DocumentController {
 //    }
 
     public Optional<TextLine> getTextLineByLineId(long lineID) {
-        for (TextLine textLine : documentModel.getAllLines()) {
-            if (textLine.getLineID() == lineID) {
-                return Optional.of(textLine);
-            }
-        }
-        return Optional.empty();
-    }
-
-    public synchronized void splitLine(long lineID, long splitIndex, String clientId) {
-        System.out.println("splitLine :: lineId = " + lineID + ", splitIndex = " + splitIndex);
-        Optional<TextLine> textLineByLineId = getTextLineByLineId(lineID);
-        if (textLineByLineId.isEmpty()) {
-            return;
-        }
-        TextLine oldLine = textLineByLineId.get();
-
-        // 락이 있는 사용자만 수정 가능
-        if(oldLine.isLocked() && !oldLine.getLockClientID().equals(clientId)){
-            return;
-        }
-
-        String oldContent = oldLine.getContent();
-        String left = oldContent.substring(0, (int) splitIndex);
-        String right = oldContent.substring((int) splitIndex);
-        System.out.println("splitLine :: left = " + left + ", right=" + right);
-        documentModel.forceUpdateContent(lineID, left);
-        documentModel.insertLineAt(lineID, right, false, oldLine.getLockClientID());
+        return Optional.ofNullable(documentModel.getLine(lineID));
+    }
+
+    // 분할(락 검사 포함)은 모델의 구조 lock 안에서 한 번에 처리
+    public void splitLine(long lineID, long splitIndex, String clientId) {
+        documentModel.splitLineAt(lineID, (int) splitIndex, clientId);
     }
 
     public void deleteLine(long lineID, String clientId) {
-        Optional<TextLine> textLineByLineId = getTextLineByLineId(lineID);
-        if (textLineByLineId.isEmpty()) return;
-        String contentInLineToRemove = textLineByLineId.get().getContent();
-        if (!contentInLineToRemove.isEmpty()) {
-            TextLine prevLine = null;
-            for (TextLine textLine : documentModel.getAllLines()) {
-                if (textLine.getLineID() == lineID) {
-                    if (prevLine != null) {
-                        @SuppressWarnings("OptionalGetWithoutIsPresent")
-                        String contentToUpdate = getTextLineByLineId(prevLine.getLineID()).get().getContent();
-                        documentModel.forceUpdateContent(prevLine.getLineID(), contentToUpdate + contentInLineToRemove);
-                    }
-                    break;
-                }
-                prevLine = textLine;
-            }
-        }
-        documentModel.deleteLineAt(lineID, clientId);
+        documentModel.mergeIntoPreviousLine(lineID, clientId);
+    }
+
+    public void mergeNextLine(long currentLineID, long nextLineID, String mergedContent, String clientId) {
+        documentModel.mergeNextLine(currentLineID, nextLineID, mergedContent, clientId);
     }
 
     public long getTopLineId() {
@@ -102,4 +87,8 @@ public abstract class DocumentController {
     public String getSerializedContents() {
         return documentModel.getSerializedContents();
     }
+
+    public String getSerializedContents(WireCodec codec) {
+        return documentModel.getSerializedContents(codec);
+    }
 }
@@ -1,6 +1,12 @@
 package editor.controller;
 
 import editor.model.DocumentModel;
+import editor.model.TextLine;
+import org.example.dto.EventContent;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 public class DocumentServerController extends DocumentController {
     public DocumentServerController(DocumentModel model) {
@@ -33,4 +39,62 @@ public class DocumentServerController extends DocumentController {
     public void resetAllLockInfo() {
         this.documentModel.resetAllLockInfo();
     }
+
+    /**
+     * 로그에 기록된 연산을 모델에 다시 적용 (WAL 복구용, 화면 갱신 없음)
+     * 처리 순서와 lock 상태가 같으면 실시간 처리 결과와 같아짐
+     */
+    public void apply(EventContent op) {
+        String clientId = op.getClientId();
+        switch (op.getType()) {
+            case "edit":
+                editLine(op.getLineId(), op.getContent(), clientId);
+                break;
+            case "insert_text":
+                insertText(op.getLineId(), op.getContent(), op.getPosition());
+                break;
+            case "delete_text":
+                deleteText(op.getLineId(), op.getPosition(), op.getPosition() + op.getLength());
+                break;
+            case "new_line_after":
+                insertLineAfter(op.getLineId(), "", clientId);
+                break;
+            case "new_line_split":
+                splitLine(op.getLineId(), op.getSplitIndex(), clientId);
+                break;
+            case "delete_line":
+                deleteLine(op.getLineId(), clientId);
+                break;
+            case "merge_next_line":
+                mergeNextLine(op.getLineId(), op.getSplitIndex(), op.getContent(), clientId);
+                break;
+            case "lock_move":
+                // nextLineId: 해제한 라인, lineId: 새로 얻은 라인 (-1이면 없음)
+                if (op.getNextLineId() != null && op.getNextLineId() >= 0L) {
+                    releaseLock(op.getNextLineId(), clientId);
+                }
+                if (op.getLineId() != null && op.getLineId() >= 0L) {
+                    acquireLock(op.getLineId(), clientId);
+                }
+                break;
+            default:
+                System.out.println("[WAL] unsupported op type: " + op.getType());
+        }
+    }
+
+    // 현재 lock 상태를 lock_move 연산 목록으로 반환 (checkpoint 직후 로그에 다시 기록)
+    public List<EventContent> lockRecords() {
+        List<EventContent> records = new ArrayList<>();
+        for (TextLine line : documentModel.lines()) {
+            if (!line.isLocked()) continue;
+            records.add(EventContent.builder()
+                    .type("lock_move")
+                    .lineId(line.getLineID())
+                    .nextLineId(-1L)
+                    .clientId(line.getLockClientID())
+                    .timestamp(LocalDateTime.now())
+                    .build());
+        }
+        return records;
+    }
 }
@@ -0,0 +1,48 @@
+package editor.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * clientID 문자열 → 작은 정수 handle 변환 테이블 (JVM 전역)
+ * 라인마다 String 참조를 들고 있지 않도록 TextLine은 handle만 저장함
+ * handle 0은 "lock 없음"으로 예약, handle 값은 프로세스 안에서만 유효하므로 직렬화에 쓰면 안 됨
+ */
+final class ClientHandles {
+    static final int NONE = 0;
+
+    private static final Map<String, Integer> handles = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[16];
+    private static int nextHandle = 1;
+
+    private ClientHandles() {
+    }
+
+    static int handleOf(String clientID) {
+        if (clientID == null) clientID = "";
+        Integer handle = handles.get(clientID);
+        if (handle != null) return handle;
+        return register(clientID);
+    }
+
+    static String nameOf(int handle) {
+        if (handle == NONE) return null;
+        return names[handle];
+    }
+
+    private static synchronized int register(String clientID) {
+        Integer handle = handles.get(clientID);
+        if (handle != null) return handle;
+
+        int newHandle = nextHandle++;
+        String[] current = names;
+        if (newHandle >= current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[newHandle] = clientID;
+        names = current; // volatile 쓰기로 이름 배열을 먼저 공개한 뒤 map에 등록
+        handles.put(clientID, newHandle);
+        return newHandle;
+    }
+}
@@ -0,0 +1,10 @@
+package editor.model;
+
+/**
+ * DocumentModel 동시성 모드
+ * - GLOBAL : 모든 변경을 하나의 배타 lock으로 직렬화 (기존 동작)
+ * - STRIPED : 라인 내용 변경은 라인 단위로 병렬 처리, 구조 변경(삽입/삭제/분할/병합)만 배타 lock
+ */
+public enum ConcurrencyMode {
+    GLOBAL, STRIPED
+}
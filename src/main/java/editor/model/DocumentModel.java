@@ -1,173 +1,429 @@
 package editor.model;
 
-import com.google.gson.Gson;
-import org.example.util.CustomGsonUtils;
+import org.example.util.WireCodec;
+import org.example.util.WireCodecs;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
 
 public class DocumentModel {
     private long topLineID = 0L;
-    private final List<TextLine> contents = new ArrayList<>();
+    // 라인 순서 + lineID 인덱스 (index/ID 접근, 중간 삽입·삭제 모두 O(log n))
+    private final LineSequence contents = new LineSequence();
+    // clientID → lock을 잡고 있는 lineID (TextLine의 lock 정보와 항상 같이 갱신)
+    private final Map<String, Long> lockOwners = new ConcurrentHashMap<>();
+
+    private final ConcurrencyMode concurrencyMode;
+    // 라인 내용 변경/조회용 lock (STRIPED: 공유, GLOBAL: 배타)
+    private final Lock contentLock;
+    // 구조 변경(삽입/삭제/분할/병합)용 배타 lock
+    private final Lock structureLock;
 
     public DocumentModel() {
+        this(ConcurrencyMode.GLOBAL);
+    }
+
+    public DocumentModel(ConcurrencyMode concurrencyMode) {
+        this.concurrencyMode = concurrencyMode;
+        ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
+        this.structureLock = rwLock.writeLock();
+        this.contentLock = concurrencyMode == ConcurrencyMode.STRIPED ? rwLock.readLock() : rwLock.writeLock();
+
         // Initialize with one empty line
         TextLine first = new TextLine(++topLineID, "");
-        contents.add(first);
+        contents.addLast(first);
     }
 
-    public DocumentModel copy() {
-        DocumentModel copied = new DocumentModel();
-        // topLineID도 동일하게 맞춰줌
-        copied.topLineID = this.topLineID;
+    /**
+     * 현재 시점의 불변 스냅샷 (O(1), 구조 lock 안에서 찍으므로 편집 도중 상태가 섞이지 않음)
+     */
+    public DocumentSnapshot snapshot() {
+        structureLock.lock();
+        try {
+            return new DocumentSnapshot(topLineID, contents.snapshot());
+        } finally {
+            structureLock.unlock();
+        }
+    }
 
-        // 기존 라인들을 deep copy해서 contents에 넣기
-        copied.contents.clear(); // 기존 초기 라인 제거
-        for (TextLine line : this.contents) {
-            // TextLine도 복사 생성자 구현 필요
-            copied.contents.add(line.copy());
+    /**
+     * 스냅샷으로부터 편집 가능한 새 모델 생성 (라인 인덱스를 새로 만들어야 하므로 O(n))
+     */
+    public static DocumentModel fromSnapshot(DocumentSnapshot snapshot, ConcurrencyMode concurrencyMode) {
+        DocumentModel model = new DocumentModel(concurrencyMode);
+        model.topLineID = snapshot.getTopLineId();
+        model.contents.clear(); // 기존 초기 라인 제거
+        for (TextLine line : snapshot.lines()) {
+            // 스냅샷의 TextLine은 공유 중이므로 복사해서 사용
+            TextLine copied = line.copy();
+            model.contents.addLast(copied);
+            if (copied.isLocked()) {
+                model.lockOwners.put(copied.getLockClientID(), copied.getLineID());
+            }
         }
+        return model;
+    }
 
-        return copied;
+    public DocumentModel copy() {
+        return fromSnapshot(snapshot(), concurrencyMode);
+    }
+
+    public ConcurrencyMode getConcurrencyMode() {
+        return concurrencyMode;
     }
 
     // 해당 client ID가 이미 lock을 가지고 있는지 체크
     private boolean checkClientHasLock(String clientID) {
-        for (TextLine line : contents) {
-            if (line.getLockClientID().equals(clientID)) {
-                return true;
-            }
-        }
-        return false;
+        return lockOwners.containsKey(clientID);
     }
 
     // 해당 client가 가지고 있는 lock line ID 반환
     public long findLockLineIDByClientID(String clientID) {
-        for (TextLine line: contents) {
-            if (line.getLockClientID().equals(clientID)) {
-                return line.getLineID();
-            }
+        Long lineID = lockOwners.get(clientID);
+        return lineID == null ? -1 : lineID; // 가지고 있는 lock이 없는 경우 -1
+    }
+
+    // TextLine lock 획득 + 소유자 인덱스 갱신
+    private boolean lockLine(TextLine line, String clientID) {
+        synchronized (line) {
+            if (!line.acquireLock(clientID)) return false;
+            lockOwners.put(clientID, line.getLineID());
+            return true;
         }
-        return -1; // 가지고 있는 lock이 없는 경우 -1
     }
 
-    // 클라이언트에서 임의 접근 금지
-    public synchronized boolean acquireLock(long lineID, String clientID) {
-        for (TextLine line : contents) {
-            if (line.getLineID() == lineID) {
-                return line.acquireLock(clientID);
+    // TextLine lock 해제 + 소유자 인덱스 갱신
+    private boolean unlockLine(TextLine line, String clientID) {
+        synchronized (line) {
+            if (!line.releaseLock(clientID)) return false;
+            lockOwners.remove(clientID, line.getLineID());
+            return true;
+        }
+    }
+
+    /**
+     * 한 라인만 수정하는 작업 실행 (라인이 없으면 missing 반환)
+     * 보통은 contentLock + 라인 monitor로 처리하고,
+     * 스냅샷과 공유 중인 라인이면 구조 lock으로 올려서 경로 복사 후 처리
+     */
+    private <T> T mutateLine(long lineID, T missing, Function<TextLine, T> action) {
+        contentLock.lock();
+        try {
+            if (!contents.isShared(lineID)) {
+                TextLine line = contents.getById(lineID);
+                if (line == null) return missing;
+                synchronized (line) {
+                    T result = action.apply(line);
+                    contents.refreshLength(lineID);
+                    return result;
+                }
+            }
+        } finally {
+            contentLock.unlock();
+        }
+
+        structureLock.lock();
+        try {
+            TextLine line = contents.getMutable(lineID);
+            if (line == null) return missing;
+            synchronized (line) {
+                T result = action.apply(line);
+                contents.refreshLength(lineID);
+                return result;
             }
+        } finally {
+            structureLock.unlock();
         }
-        return false;
     }
 
     // 클라이언트에서 임의 접근 금지
-    public synchronized boolean releaseLock(long lineID, String clientID) {
-        for (TextLine line : contents) {
-            if (line.getLineID() == lineID) {
-                return line.releaseLock(clientID);
-            }
+    public boolean acquireLock(long lineID, String clientID) {
+        return mutateLine(lineID, false, line -> lockLine(line, clientID));
+    }
+
+    // 클라이언트에서 임의 접근 금지
+    public boolean releaseLock(long lineID, String clientID) {
+        return mutateLine(lineID, false, line -> unlockLine(line, clientID));
+    }
+
+    public boolean releaseLockByClientId(String clientId) {
+        Long lineID = lockOwners.get(clientId);
+        if (lineID == null) return false;
+        Boolean released = mutateLine(lineID, null, line -> unlockLine(line, clientId));
+        if (released == null) {
+            lockOwners.remove(clientId, lineID);
+            return false;
         }
-        return false;
+        return released;
     }
 
-    public synchronized boolean releaseLockByClientId(String clientId) {
-        for (TextLine line : contents) {
-            if (clientId.equals(line.getLockClientID())) {
-                return line.releaseLock(clientId);
+    public void updateLineAt(long lineID, String content, String clientID) {
+        mutateLine(lineID, null, line -> {
+            if (!line.isLocked()) {
+                if (!lockLine(line, clientID)) return null;
             }
+            if (clientID.equals(line.getLockClientID())) {
+                line.setContent(content);
+            }
+            return null;
+        });
+    }
+
+    public long insertLineAt(long lineID, String content, boolean before, String clientId) {
+        structureLock.lock();
+        try {
+            int index = contents.indexOf(lineID);
+            if (index < 0) index = contents.size(); // 기존 동작과 동일하게 못 찾으면 맨 끝
+            int insertPos = before ? index : Math.min(index + 1, contents.size());
+            TextLine newLine = new TextLine(++topLineID, content);
+            contents.add(insertPos, newLine);
+            releaseLock(lineID, clientId);
+            acquireLock(topLineID, clientId);
+            return topLineID;
+        } finally {
+            structureLock.unlock();
         }
-        return false;
     }
 
-    public synchronized void updateLineAt(long lineID, String content, String clientID) {
-        for (TextLine line : contents) {
-            if (line.getLineID() == lineID) {
-                if (!line.isLocked()) {
-                    if (!line.acquireLock(clientID)) return;
-                }
-                if (clientID.equals(line.getLockClientID())) {
-                    line.setContent(content);
-                }
-                return;
+    /**
+     * splitIndex 위치에서 라인을 둘로 나눔 (새 라인은 바로 뒤에 추가)
+     * 다른 client가 lock을 가진 라인이면 무시하고 -1 반환
+     */
+    public long splitLineAt(long lineID, int splitIndex, String clientId) {
+        structureLock.lock();
+        try {
+            TextLine oldLine = contents.getMutable(lineID);
+            if (oldLine == null) return -1;
+
+            // 락이 있는 사용자만 수정 가능
+            if (oldLine.isLocked() && !oldLine.getLockClientID().equals(clientId)) {
+                return -1;
             }
+
+            String oldContent = oldLine.getContent();
+            int index = Math.max(0, Math.min(splitIndex, oldContent.length()));
+            oldLine.setContent(oldContent.substring(0, index));
+            contents.refreshLength(lineID);
+            return insertLineAt(lineID, oldContent.substring(index), false, oldLine.getLockClientID());
+        } finally {
+            structureLock.unlock();
+        }
+    }
+
+    /**
+     * 다음 라인을 현재 라인에 병합 (현재 라인 내용을 mergedContent로 바꾸고 다음 라인 삭제)
+     */
+    public void mergeNextLine(long currentLineID, long nextLineID, String mergedContent, String clientID) {
+        structureLock.lock();
+        try {
+            forceUpdateContent(currentLineID, mergedContent);
+            deleteLineAt(nextLineID, clientID);
+        } finally {
+            structureLock.unlock();
         }
     }
 
-    public synchronized long insertLineAt(long lineID, String content, boolean before, String clientId) {
-        int index = 0;
-        for (; index < contents.size(); index++) {
-            if (contents.get(index).getLineID() == lineID) {
-                break;
+    /**
+     * 라인을 삭제하고 남은 내용은 이전 라인 끝에 이어붙임 (BACK_SPACE 병합)
+     */
+    public void mergeIntoPreviousLine(long lineID, String clientID) {
+        structureLock.lock();
+        try {
+            int index = contents.indexOf(lineID);
+            if (index < 0) return;
+            String contentToMove = contents.get(index).getContent();
+            if (!contentToMove.isEmpty() && index > 0) {
+                TextLine prevLine = contents.getMutable(contents.get(index - 1).getLineID());
+                prevLine.insertText(prevLine.length(), contentToMove);
+                contents.refreshLength(prevLine.getLineID());
             }
+            deleteLineAt(lineID, clientID);
+        } finally {
+            structureLock.unlock();
         }
-        int insertPos = before ? index : index + 1;
-        TextLine newLine = new TextLine(++topLineID, content);
-        contents.add(insertPos, newLine);
-        releaseLock(lineID, clientId);
-        acquireLock(topLineID, clientId);
-        return topLineID;
     }
 
-    public synchronized void deleteLineAt(long lineID, String clientID) {
-        for (int i = 0; i < contents.size(); i++) {
-            TextLine currentLine = contents.get(i);
-            if (currentLine.getLineID() == lineID) {
-                // 1. 해당 라인의 락을 해제
-                currentLine.releaseLock(clientID);
+    public void deleteLineAt(long lineID, String clientID) {
+        structureLock.lock();
+        try {
+            int i = contents.indexOf(lineID);
+            if (i < 0) return;
+            TextLine currentLine = contents.getMutable(lineID);
 
-                // 2. 라인 삭제
-                contents.remove(i);
+            // 1. 해당 라인의 락을 해제
+            unlockLine(currentLine, clientID);
 
-                // 3. 이전 라인이 존재하면 락을 획득 시도
-                if (i - 1 >= 0) {
-                    TextLine prevLine = contents.get(i - 1);
-                    prevLine.acquireLock(clientID);
-                }
+            // 2. 라인 삭제
+            contents.remove(i);
+            // 다른 client의 lock이 남아있던 라인이면 인덱스에서도 제거
+            if (currentLine.isLocked()) {
+                lockOwners.remove(currentLine.getLockClientID(), lineID);
+            }
 
-                return;
+            // 3. 이전 라인이 존재하면 락을 획득 시도
+            if (i - 1 >= 0) {
+                TextLine prevLine = contents.getMutable(contents.get(i - 1).getLineID());
+                lockLine(prevLine, clientID);
             }
+        } finally {
+            structureLock.unlock();
         }
     }
 
-    public synchronized void addNewLine() {
-        TextLine newLine = new TextLine(++topLineID, "");
-        contents.add(newLine);
+    public void addNewLine() {
+        structureLock.lock();
+        try {
+            TextLine newLine = new TextLine(++topLineID, "");
+            contents.addLast(newLine);
+        } finally {
+            structureLock.unlock();
+        }
     }
 
-    public synchronized List<TextLine> getAllLines() {
-        return new ArrayList<>(contents);
+    // 전체 라인 복사본 (호출 시점 스냅샷이 필요할 때만 사용)
+    public List<TextLine> getAllLines() {
+        contentLock.lock();
+        try {
+            return new ArrayList<>(contents.asList());
+        } finally {
+            contentLock.unlock();
+        }
     }
 
-    public synchronized void forceUpdateContent(long lineID, String content) {
-        for (TextLine line : contents) {
-            if (line.getLineID() == lineID) {
-                System.out.println("forceUpdateContent success");
-                line.setContent(content);
-                return;
-            }
+    /**
+     * 복사 없는 읽기 전용 라인 뷰
+     * 모델이 변경되면 뷰에도 바로 반영되므로 모델을 변경하는 스레드와 같은 스레드에서 읽어야 함
+     */
+    public List<TextLine> lines() {
+        return contents.asList();
+    }
+
+    public int getLineCount() {
+        contentLock.lock();
+        try {
+            return contents.size();
+        } finally {
+            contentLock.unlock();
         }
     }
 
-    public synchronized void insertTextAt(long lineID, String text, int pos) {
-        for (TextLine line : contents) {
-            if (line.getLineID() == lineID) {
-                String old = line.getContent();
-                if (pos < 0 || pos > old.length()) pos = old.length(); // 안전검사
-                String newContent = old.substring(0, pos) + text + old.substring(pos);
-                line.setContent(newContent);
-                return;
-            }
+    // index 위치의 라인 조회 (O(log n))
+    public TextLine getLineAt(int index) {
+        contentLock.lock();
+        try {
+            return contents.get(index);
+        } finally {
+            contentLock.unlock();
+        }
+    }
+
+    // lineID의 현재 위치, 없으면 -1 (O(log n))
+    public int indexOf(long lineID) {
+        contentLock.lock();
+        try {
+            return contents.indexOf(lineID);
+        } finally {
+            contentLock.unlock();
+        }
+    }
+
+    /**
+     * index번째 라인의 시작 글자 offset (라인 사이 줄바꿈 1글자 포함, O(log n))
+     * 화면(Swing Document) 없이 모델만으로 라인 ↔ offset 변환
+     */
+    public int lineStartOffset(int index) {
+        structureLock.lock();
+        try {
+            return contents.offsetOf(index);
+        } finally {
+            structureLock.unlock();
+        }
+    }
+
+    // offset이 속한 라인 index (O(log n), 범위를 벗어나면 첫/마지막 라인)
+    public int lineIndexAtOffset(int offset) {
+        structureLock.lock();
+        try {
+            return contents.indexAtOffset(Math.max(0, offset));
+        } finally {
+            structureLock.unlock();
+        }
+    }
+
+    // 전체 글자 수 (라인 사이 줄바꿈 포함)
+    public int getTextLength() {
+        structureLock.lock();
+        try {
+            return contents.textLength();
+        } finally {
+            structureLock.unlock();
         }
     }
 
+    public void forceUpdateContent(long lineID, String content) {
+        mutateLine(lineID, null, line -> {
+            line.setContent(content);
+            return null;
+        });
+    }
+
+    public void insertTextAt(long lineID, String text, int pos) {
+        mutateLine(lineID, null, line -> {
+            line.insertText(pos, text);
+            return null;
+        });
+    }
+
+    // lock 검사 없이 [start, end) 글자 삭제 (서버에서 이미 검증된 연산 적용용)
+    public void forceDeleteText(long lineID, int start, int end) {
+        mutateLine(lineID, null, line -> {
+            line.deleteText(start, end);
+            return null;
+        });
+    }
+
+    /**
+     * 라인의 [start, end) 글자 삭제 (updateLineAt과 같은 lock 규칙)
+     * 라인 전체 문자열을 다시 만들지 않으므로 긴 라인에서도 O(log n)
+     */
+    public void deleteTextAt(long lineID, int start, int end, String clientID) {
+        mutateLine(lineID, null, line -> {
+            if (!line.isLocked()) {
+                if (!lockLine(line, clientID)) return null;
+            }
+            if (clientID.equals(line.getLockClientID())) {
+                line.deleteText(start, end);
+            }
+            return null;
+        });
+    }
+
     // 서버에서 lock 정보 업데이트 시 사용
     public void setLockInfoByServer(long lineID, LockStatus lock, String lockClientID) {
-        for (TextLine line : contents) {
-            if (line.getLineID() == lineID) {
-                line.setLockInfoByServer(lock, lockClientID);
+        mutateLine(lineID, null, line -> {
+            if (line.isLocked()) {
+                lockOwners.remove(line.getLockClientID(), lineID);
             }
+            line.setLockInfoByServer(lock, lockClientID);
+            if (lock == LockStatus.ACQUIRE) {
+                lockOwners.put(lockClientID, lineID);
+            }
+            return null;
+        });
+    }
+
+    // lineID로 라인 조회 (없으면 null)
+    public TextLine getLine(long lineID) {
+        contentLock.lock();
+        try {
+            return contents.getById(lineID);
+        } finally {
+            contentLock.unlock();
         }
     }
 
@@ -176,19 +432,45 @@ public class DocumentModel {
     }
 
     public String getSerializedContents() {
-        Gson gson = CustomGsonUtils.CustomGson();
-        return gson.toJson(contents);
+        return getSerializedContents(WireCodecs.JSON);
+    }
+
+    // 스냅샷을 순회하며 직렬화하므로 직렬화하는 동안 구조 lock을 잡지 않음
+    public String getSerializedContents(WireCodec codec) {
+        return codec.encodeLines(snapshot().lines());
     }
 
     public void pushFromServer(long topLineId, List<TextLine> contents) {
-        this.topLineID = topLineId;
-        this.contents.clear();
-        this.contents.addAll(contents);
+        structureLock.lock();
+        try {
+            this.topLineID = topLineId;
+            this.contents.clear();
+            this.lockOwners.clear();
+            for (TextLine line : contents) {
+                this.contents.addLast(line);
+                if (line.isLocked()) {
+                    this.lockOwners.put(line.getLockClientID(), line.getLineID());
+                }
+            }
+        } finally {
+            structureLock.unlock();
+        }
     }
 
     public void resetAllLockInfo() {
-        for (TextLine line : contents) {
-            line.resetLockInfo();
+        structureLock.lock();
+        try {
+            // 경로 복사가 순회 중인 트리를 바꾸므로 대상 라인을 먼저 모아둠
+            List<Long> lockedLineIDs = new ArrayList<>();
+            for (TextLine line : contents) {
+                if (line.isLocked()) lockedLineIDs.add(line.getLineID());
+            }
+            for (long lineID : lockedLineIDs) {
+                contents.getMutable(lineID).resetLockInfo();
+            }
+            lockOwners.clear();
+        } finally {
+            structureLock.unlock();
         }
     }
 }
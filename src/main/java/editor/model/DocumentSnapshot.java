@@ -0,0 +1,56 @@
+package editor.model;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * DocumentModel의 특정 시점 불변 스냅샷
+ * 모델과 트리 노드를 공유하므로 생성은 O(1)이고, 이후 모델이 바뀐 부분만 따로 복사됨
+ * 스냅샷이 가진 TextLine은 절대 수정하면 안 됨
+ */
+public final class DocumentSnapshot {
+    private final long topLineID;
+    private final LineSequence.Node root;
+    private final List<TextLine> lines = new SnapshotLines();
+
+    DocumentSnapshot(long topLineID, LineSequence.Node root) {
+        this.topLineID = topLineID;
+        this.root = root;
+    }
+
+    public long getTopLineId() {
+        return topLineID;
+    }
+
+    public int getLineCount() {
+        return LineSequence.size(root);
+    }
+
+    /**
+     * 읽기 전용 라인 뷰 (복사 없음)
+     */
+    public List<TextLine> lines() {
+        return lines;
+    }
+
+    private final class SnapshotLines extends AbstractList<TextLine> {
+        @Override
+        public TextLine get(int i) {
+            if (i < 0 || i >= size()) {
+                throw new IndexOutOfBoundsException("index: " + i + ", size: " + size());
+            }
+            return LineSequence.get(root, i);
+        }
+
+        @Override
+        public int size() {
+            return getLineCount();
+        }
+
+        @Override
+        public Iterator<TextLine> iterator() {
+            return LineSequence.iterator(root);
+        }
+    }
+}
@@ -2,35 +2,256 @@ package editor.model;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.CRC32;
 
+/**
+ * 디스크에 저장되는 문서 저장소
+ * - 문서마다 바이너리 스냅샷 파일(<docId>.snap)을 임시 파일에 쓴 뒤 원자적으로 교체
+ * - 문서 목록(id, 제목)은 append-only 로그(catalog.log)에 기록, 레코드마다 CRC로 깨진 꼬리 감지
+ * 시작 시에는 catalog 로그만 재생하고 스냅샷은 loadDocument 때 읽으므로
+ * 재시작 시간은 문서 내용 크기가 아니라 저장 횟수에만 비례함 (로그가 커지면 compaction)
+ * 메모리에는 최근에 쓰거나 읽은 CACHE_DOCUMENTS개의 스냅샷만 유지 (LRU)
+ */
 public class DocumentStorage {
-    private Map<String, DocumentModel> documents = new HashMap<>();
-    private Map<String, String> documentTitles = new HashMap<>(); // 문서ID → 제목
+    private static final int SNAPSHOT_MAGIC = 0x444F4353; // "DOCS"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final String CATALOG_FILE = "catalog.log";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    static final int CACHE_DOCUMENTS = Integer.getInteger("editor.storage.cache.docs", 8);
+
+    private final Path directory;
+    private final Path catalogPath;
+    // 최근에 쓰거나 읽은 스냅샷 캐시 (접근 순서, 넘치면 가장 오래된 것부터 버림)
+    private final Map<String, DocumentSnapshot> documents = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DocumentSnapshot> eldest) {
+            return size() > CACHE_DOCUMENTS;
+        }
+    };
+    private final Map<String, String> documentTitles = new LinkedHashMap<>(); // 문서ID → 제목 (저장 순서)
+    private FileChannel catalog;
+    private int catalogRecords = 0;
+
+    public DocumentStorage() {
+        this(Paths.get("server-file-path", "documents"));
+    }
+
+    public DocumentStorage(Path directory) {
+        this.directory = directory;
+        this.catalogPath = directory.resolve(CATALOG_FILE);
+        try {
+            Files.createDirectories(directory);
+            recoverCatalog();
+            catalog = FileChannel.open(catalogPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("document storage open failed: " + directory, e);
+        }
+        System.out.println("[STORAGE] " + documentTitles.size() + " documents recovered from " + directory);
+    }
 
     // 문서 저장
-    public void saveDocument(String docId, String title, DocumentModel model) {
-        documents.put(docId, model); // 깊은 복사 권장
+    public synchronized void saveDocument(String docId, String title, DocumentSnapshot snapshot) {
+        try {
+            writeSnapshot(docId, snapshot);
+            appendCatalog(docId, title);
+        } catch (IOException e) {
+            throw new UncheckedIOException("document save failed: " + docId, e);
+        }
+        documents.put(docId, snapshot); // 스냅샷은 불변이므로 그대로 보관
         documentTitles.put(docId, title);
+        if (catalogRecords > 2 * documentTitles.size() + 64) {
+            compactCatalog();
+        }
     }
 
-    // 문서 불러오기
-    public DocumentModel loadDocument(String docId) {
-        return documents.get(docId);
+    // 문서 불러오기 (처음 요청될 때 디스크에서 읽음)
+    public synchronized DocumentSnapshot loadDocument(String docId) {
+        DocumentSnapshot cached = documents.get(docId);
+        if (cached != null || !documentTitles.containsKey(docId)) return cached;
+        try {
+            DocumentSnapshot snapshot = readSnapshot(snapshotPath(docId));
+            documents.put(docId, snapshot);
+            return snapshot;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("[STORAGE] snapshot read failed: " + docId + " (" + e + ")");
+            return null;
+        }
     }
 
     // 문서 목록 반환 (ID, 제목)
-    public List<DocumentMeta> listDocuments() {
+    public synchronized List<DocumentMeta> listDocuments() {
         List<DocumentMeta> list = new ArrayList<>();
-        for (String docId : documents.keySet()) {
-            list.add(new DocumentMeta(docId, documentTitles.get(docId)));
+        for (Map.Entry<String, String> entry : documentTitles.entrySet()) {
+            list.add(new DocumentMeta(entry.getKey(), entry.getValue()));
         }
         return list;
     }
 
+    // ---- 스냅샷 파일 ----
+    // [magic][version][topLineID][lineCount] + 라인마다 [lineID][lastEditedMillis][len][UTF-8 bytes]
+    // lock 정보는 저장하지 않음 (불러올 때 어차피 초기화됨)
+
+    private Path snapshotPath(String docId) {
+        return directory.resolve(docId + SNAPSHOT_SUFFIX);
+    }
+
+    private void writeSnapshot(String docId, DocumentSnapshot snapshot) throws IOException {
+        Path target = snapshotPath(docId);
+        Path temp = directory.resolve(docId + SNAPSHOT_SUFFIX + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(snapshot.getTopLineId());
+            out.writeInt(snapshot.getLineCount());
+            for (TextLine line : snapshot.lines()) {
+                byte[] content = line.getContent().getBytes(StandardCharsets.UTF_8);
+                out.writeLong(line.getLineID());
+                out.writeLong(line.getLastEditedMillis());
+                out.writeInt(content.length);
+                out.write(content);
+            }
+            out.flush();
+            channel.force(false);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // 파일을 mmap 하지 않고 순서대로 읽음 (매핑이 남아 있으면 Windows에서 같은 경로로 교체하는 move가 실패함)
+    private DocumentSnapshot readSnapshot(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(channel), 1 << 16));
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("not a document snapshot: " + path);
+            }
+            long topLineID = in.readLong();
+            int lineCount = in.readInt();
+            LineSequence lines = new LineSequence();
+            for (int i = 0; i < lineCount; i++) {
+                long lineID = in.readLong();
+                long lastEditedMillis = in.readLong();
+                byte[] content = new byte[in.readInt()];
+                in.readFully(content);
+                lines.addLast(TextLine.restore(lineID, new String(content, StandardCharsets.UTF_8), null, lastEditedMillis));
+            }
+            return new DocumentSnapshot(topLineID, lines.snapshot());
+        }
+    }
+
+    // ---- catalog 로그 ----
+    // 레코드: [len][crc32][docId len][docId][title len][title] (len/crc는 그 뒤 payload 기준)
+
+    private void appendCatalog(String docId, String title) throws IOException {
+        writeRecord(catalog, docId, title);
+        catalog.force(false);
+        catalogRecords++;
+    }
+
+    private static void writeRecord(FileChannel channel, String docId, String title) throws IOException {
+        byte[] id = docId.getBytes(StandardCharsets.UTF_8);
+        byte[] name = (title == null ? "" : title).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(8 + id.length + name.length);
+        payload.putInt(id.length).put(id).putInt(name.length).put(name).flip();
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        ByteBuffer header = ByteBuffer.allocate(8);
+        header.putInt(payload.remaining()).putInt((int) crc.getValue()).flip();
+        while (header.hasRemaining() || payload.hasRemaining()) {
+            channel.write(new ByteBuffer[]{header, payload});
+        }
+    }
+
+    // 로그를 처음부터 재생, 깨진 꼬리(저장 도중 종료)는 잘라냄
+    private void recoverCatalog() throws IOException {
+        if (!Files.exists(catalogPath)) return;
+        long validEnd = 0;
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(catalogPath));
+        try {
+            while (buf.remaining() >= 8) {
+                int length = buf.getInt();
+                int checksum = buf.getInt();
+                if (length < 8 || length > buf.remaining()) break;
+                ByteBuffer payload = buf.slice();
+                payload.limit(length);
+                CRC32 crc = new CRC32();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) break;
+
+                byte[] id = new byte[payload.getInt()];
+                payload.get(id);
+                byte[] name = new byte[payload.getInt()];
+                payload.get(name);
+                String docId = new String(id, StandardCharsets.UTF_8);
+                if (Files.exists(snapshotPath(docId))) {
+                    documentTitles.put(docId, new String(name, StandardCharsets.UTF_8));
+                }
+                catalogRecords++;
+                buf.position(buf.position() + length);
+                validEnd = buf.position();
+            }
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            // 레코드 내부 길이가 깨진 경우도 꼬리로 취급
+        }
+        if (validEnd < buf.capacity()) {
+            System.out.println("[STORAGE] truncating torn catalog tail at " + validEnd);
+            try (FileChannel channel = FileChannel.open(catalogPath, StandardOpenOption.WRITE)) {
+                channel.truncate(validEnd);
+            }
+        }
+    }
+
+    // 문서마다 최신 레코드 하나만 남기고 로그를 다시 씀
+    private void compactCatalog() {
+        Path temp = directory.resolve(CATALOG_FILE + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (Map.Entry<String, String> entry : documentTitles.entrySet()) {
+                    writeRecord(channel, entry.getKey(), entry.getValue());
+                }
+                channel.force(false);
+            }
+            catalog.close();
+            Files.move(temp, catalogPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            catalog = FileChannel.open(catalogPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            catalogRecords = documentTitles.size();
+        } catch (IOException e) {
+            System.out.println("[STORAGE] catalog compaction failed: " + e);
+            try {
+                if (!catalog.isOpen()) {
+                    catalog = FileChannel.open(catalogPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                }
+            } catch (IOException reopen) {
+                throw new UncheckedIOException("document storage reopen failed: " + catalogPath, reopen);
+            }
+        }
+    }
+
     public static class DocumentMeta {
         public String id;
         public String title;
@@ -0,0 +1,438 @@
+package editor.model;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 문서의 라인 순서를 유지하는 order-statistic treap
+ * - index 접근 / 중간 삽입·삭제 : O(log n)
+ * - lineID → 위치 조회 : 해시 인덱스 + parent 포인터로 O(log n)
+ * - 라인 index ↔ 글자 offset 변환 : 서브트리 글자 수(라인 길이 + 줄바꿈 1) 합으로 O(log n)
+ *   라인 내용이 바뀌면 refreshLength로 조상까지의 합을 갱신해야 함
+ * 동기화는 하지 않으므로 DocumentModel의 lock 안에서만 사용해야 함
+ *
+ * snapshot()은 현재 세대(gen)를 얼려서 O(1)로 트리를 공유함
+ * 이후 변경은 얼어있는 노드(gen이 다른 노드)를 복사한 뒤에만 수정하므로(path copying)
+ * 스냅샷과 달라진 경로만 메모리를 추가로 사용함
+ * parent 포인터는 현재 트리 전용이라 스냅샷 쪽에서는 읽지 않음
+ * 얼어있는 노드의 parent 필드는 절대 고치지 않고, 현재 트리에서 부모가 바뀌면 sharedParents에 따로 둠
+ * (필드를 고치면 스냅샷 노드가 이후 세대의 트리를 가리켜서 스냅샷이 최신 트리까지 붙잡게 됨)
+ */
+final class LineSequence implements Iterable<TextLine> {
+    static final class Node {
+        final TextLine line;
+        final int priority;
+        final int gen;
+        Node left, right, parent;
+        int size = 1;
+        // 이 라인의 글자 수 + 줄바꿈, 서브트리 전체 합
+        int lineChars;
+        int chars;
+
+        Node(TextLine line, int gen) {
+            this(line, ThreadLocalRandom.current().nextInt(), gen);
+            this.lineChars = this.chars = line.length() + 1;
+        }
+
+        private Node(TextLine line, int priority, int gen) {
+            this.line = line;
+            this.priority = priority;
+            this.gen = gen;
+        }
+    }
+
+    private final Map<Long, Node> index = new HashMap<>();
+    // 현재 트리에서 부모가 바뀐 얼어있는 노드 → 현재 부모 (null이면 root)
+    private final Map<Node, Node> sharedParents = new IdentityHashMap<>();
+    private final List<TextLine> view = new LinesView();
+    private Node root;
+    // 현재 세대, 이 값과 다른 gen의 노드는 스냅샷과 공유 중이므로 수정 금지
+    private int gen = 0;
+
+    int size() {
+        return size(root);
+    }
+
+    TextLine get(int i) {
+        if (i < 0 || i >= size()) {
+            throw new IndexOutOfBoundsException("index: " + i + ", size: " + size());
+        }
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (i < leftSize) {
+                node = node.left;
+            } else if (i == leftSize) {
+                return node.line;
+            } else {
+                i -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    TextLine getById(long lineID) {
+        Node node = index.get(lineID);
+        return node == null ? null : node.line;
+    }
+
+    // 스냅샷과 공유 중인 라인인지 (수정 전에 복사가 필요한지)
+    boolean isShared(long lineID) {
+        Node node = index.get(lineID);
+        return node != null && node.gen != gen;
+    }
+
+    /**
+     * 수정 가능한 라인 반환 (공유 중이면 root부터 경로를 복사)
+     * 트리 구조를 바꾸므로 배타 lock 안에서만 호출해야 함
+     */
+    TextLine getMutable(long lineID) {
+        Node node = index.get(lineID);
+        if (node == null) return null;
+        if (node.gen == gen) return node.line;
+
+        Deque<Node> path = new ArrayDeque<>();
+        for (Node n = node; n != null; n = parentOf(n)) {
+            path.push(n);
+        }
+        Node ownedParent = null;
+        for (Node n : path) {
+            Node owned = own(n);
+            if (ownedParent == null) {
+                setRoot(owned);
+            } else if (ownedParent.left == n) {
+                setLeft(ownedParent, owned);
+            } else {
+                setRight(ownedParent, owned);
+            }
+            ownedParent = owned;
+        }
+        return ownedParent.line;
+    }
+
+    /**
+     * 현재 트리를 얼리고 root를 반환 (O(1))
+     */
+    Node snapshot() {
+        gen++;
+        return root;
+    }
+
+    // lineID의 현재 위치, 없으면 -1
+    int indexOf(long lineID) {
+        Node node = index.get(lineID);
+        if (node == null) return -1;
+        int pos = size(node.left);
+        for (Node parent = parentOf(node); parent != null; parent = parentOf(node)) {
+            if (node == parent.right) {
+                pos += size(parent.left) + 1;
+            }
+            node = parent;
+        }
+        return pos;
+    }
+
+    /**
+     * 라인 내용이 바뀐 뒤 호출 : 길이가 달라졌으면 root까지 글자 수 합 갱신 (O(log n))
+     * 수정한 라인은 getMutable 등으로 현재 세대 소유이고, 소유 노드의 조상도 모두 소유 노드임
+     * STRIPED 모드에서는 여러 라인이 동시에 바뀔 수 있으므로 synchronized
+     */
+    synchronized void refreshLength(long lineID) {
+        Node node = index.get(lineID);
+        if (node == null || node.gen != gen) return;
+        int delta = node.line.length() + 1 - node.lineChars;
+        if (delta == 0) return;
+        node.lineChars += delta;
+        for (Node n = node; n != null; n = parentOf(n)) {
+            n.chars += delta;
+        }
+    }
+
+    // 전체 글자 수 (라인 사이 줄바꿈 포함, 마지막 줄바꿈 제외)
+    int textLength() {
+        return root == null ? 0 : root.chars - 1;
+    }
+
+    // i번째 라인의 시작 offset (i == size()이면 문서 끝 + 1)
+    int offsetOf(int i) {
+        if (i < 0 || i > size()) {
+            throw new IndexOutOfBoundsException("index: " + i + ", size: " + size());
+        }
+        int offset = 0;
+        Node node = root;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (i <= leftSize) {
+                node = node.left;
+            } else {
+                offset += chars(node.left) + node.lineChars;
+                i -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        return offset;
+    }
+
+    // offset 위치가 속한 라인 index (줄바꿈은 그 라인에 속함, 범위를 벗어나면 첫/마지막 라인)
+    int indexAtOffset(int offset) {
+        if (root == null) return -1;
+        if (offset >= root.chars) return size() - 1;
+        int pos = 0;
+        Node node = root;
+        while (true) {
+            int leftChars = chars(node.left);
+            if (offset < leftChars) {
+                node = node.left;
+            } else if (offset < leftChars + node.lineChars) {
+                return pos + size(node.left);
+            } else {
+                offset -= leftChars + node.lineChars;
+                pos += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    void add(int i, TextLine line) {
+        if (i < 0 || i > size()) {
+            throw new IndexOutOfBoundsException("index: " + i + ", size: " + size());
+        }
+        Node node = new Node(line, gen);
+        index.put(line.getLineID(), node);
+        Node[] parts = new Node[2];
+        split(root, i, parts);
+        setRoot(merge(merge(parts[0], node), parts[1]));
+    }
+
+    void addLast(TextLine line) {
+        Node node = new Node(line, gen);
+        index.put(line.getLineID(), node);
+        setRoot(merge(root, node));
+    }
+
+    TextLine remove(int i) {
+        if (i < 0 || i >= size()) {
+            throw new IndexOutOfBoundsException("index: " + i + ", size: " + size());
+        }
+        Node[] left = new Node[2];
+        Node[] right = new Node[2];
+        split(root, i, left);
+        split(left[1], 1, right);
+        Node removed = right[0];
+        index.remove(removed.line.getLineID());
+        sharedParents.remove(removed);
+        setRoot(merge(left[0], right[1]));
+        return removed.line;
+    }
+
+    void clear() {
+        root = null;
+        index.clear();
+        sharedParents.clear();
+    }
+
+    /**
+     * 복사 없는 읽기 전용 List 뷰 (get은 O(log n), 순회는 전체 O(n))
+     */
+    List<TextLine> asList() {
+        return view;
+    }
+
+    @Override
+    public Iterator<TextLine> iterator() {
+        return new Iterator<>() {
+            private Node next = leftmost(root);
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public TextLine next() {
+                if (next == null) throw new NoSuchElementException();
+                Node current = next;
+                next = successor(current);
+                return current.line;
+            }
+        };
+    }
+
+    static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int chars(Node node) {
+        return node == null ? 0 : node.chars;
+    }
+
+    private static void update(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+        node.chars = chars(node.left) + chars(node.right) + node.lineChars;
+    }
+
+    // 현재 세대 소유 노드 반환, 공유 중이면 라인까지 복사해서 인덱스를 새 노드로 교체
+    private Node own(Node node) {
+        if (node.gen == gen) return node;
+        Node copied = new Node(node.line.copy(), node.priority, gen);
+        copied.size = node.size;
+        copied.lineChars = node.lineChars;
+        copied.chars = node.chars;
+        setLeft(copied, node.left);
+        setRight(copied, node.right);
+        index.put(copied.line.getLineID(), copied);
+        sharedParents.remove(node);
+        return copied;
+    }
+
+    // 현재 트리 기준 부모
+    private Node parentOf(Node node) {
+        if (node.gen == gen) return node.parent;
+        return sharedParents.getOrDefault(node, node.parent);
+    }
+
+    private void setParent(Node child, Node parent) {
+        if (child == null) return;
+        if (child.gen == gen) {
+            child.parent = parent;
+        } else {
+            sharedParents.put(child, parent); // 얼어있는 노드는 고치지 않음
+        }
+    }
+
+    private void setRoot(Node node) {
+        root = node;
+        setParent(node, null);
+    }
+
+    // node는 항상 현재 세대 소유 노드
+    private void setLeft(Node node, Node child) {
+        node.left = child;
+        setParent(child, node);
+    }
+
+    private void setRight(Node node, Node child) {
+        node.right = child;
+        setParent(child, node);
+    }
+
+    // 앞의 k개는 out[0], 나머지는 out[1]
+    private void split(Node node, int k, Node[] out) {
+        if (node == null) {
+            out[0] = out[1] = null;
+            return;
+        }
+        node = own(node);
+        if (size(node.left) >= k) {
+            split(node.left, k, out);
+            setLeft(node, out[1]);
+            update(node);
+            out[1] = node;
+        } else {
+            split(node.right, k - size(node.left) - 1, out);
+            setRight(node, out[0]);
+            update(node);
+            out[0] = node;
+        }
+    }
+
+    private Node merge(Node a, Node b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a = own(a);
+            setRight(a, merge(a.right, b));
+            update(a);
+            return a;
+        }
+        b = own(b);
+        setLeft(b, merge(a, b.left));
+        update(b);
+        return b;
+    }
+
+    private static Node leftmost(Node node) {
+        if (node == null) return null;
+        while (node.left != null) node = node.left;
+        return node;
+    }
+
+    private Node successor(Node node) {
+        if (node.right != null) return leftmost(node.right);
+        Node parent = parentOf(node);
+        while (parent != null && node == parent.right) {
+            node = parent;
+            parent = parentOf(node);
+        }
+        return parent;
+    }
+
+    // 스냅샷 root 기준 index 접근 (parent 포인터 사용 안 함)
+    static TextLine get(Node root, int i) {
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (i < leftSize) {
+                node = node.left;
+            } else if (i == leftSize) {
+                return node.line;
+            } else {
+                i -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    // 스냅샷 root 기준 순회 (parent 포인터 대신 스택 사용)
+    static Iterator<TextLine> iterator(Node root) {
+        return new Iterator<>() {
+            private final Deque<Node> stack = new ArrayDeque<>();
+
+            {
+                pushLeft(root);
+            }
+
+            private void pushLeft(Node node) {
+                for (; node != null; node = node.left) stack.push(node);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !stack.isEmpty();
+            }
+
+            @Override
+            public TextLine next() {
+                if (stack.isEmpty()) throw new NoSuchElementException();
+                Node node = stack.pop();
+                pushLeft(node.right);
+                return node.line;
+            }
+        };
+    }
+
+    private final class LinesView extends AbstractList<TextLine> {
+        @Override
+        public TextLine get(int i) {
+            return LineSequence.this.get(i);
+        }
+
+        @Override
+        public int size() {
+            return LineSequence.this.size();
+        }
+
+        @Override
+        public Iterator<TextLine> iterator() {
+            return LineSequence.this.iterator();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package editor.model;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 긴 라인 내용용 불변 rope (문자 수 기준 implicit treap, 노드마다 최대 MAX_CHUNK 글자)
+ * - 중간 삽입 / 범위 삭제 : O(log n + chunk), 바뀐 경로의 노드만 새로 만듦
+ * - 노드를 수정하지 않으므로 TextLine.copy()와 스냅샷에서 그대로 공유해도 안전함
+ * chunk는 String으로 보관해서 Latin-1 압축은 JDK compact string에 맡김
+ */
+final class Rope {
+    static final int MAX_CHUNK = 512;
+
+    private final String chunk;
+    private final int priority;
+    private final Rope left, right;
+    private final int length;
+
+    private Rope(Rope left, String chunk, int priority, Rope right) {
+        this.left = left;
+        this.chunk = chunk;
+        this.priority = priority;
+        this.right = right;
+        this.length = length(left) + chunk.length() + length(right);
+    }
+
+    private Rope with(Rope left, String chunk, Rope right) {
+        return new Rope(left, chunk, priority, right);
+    }
+
+    static int length(Rope rope) {
+        return rope == null ? 0 : rope.length;
+    }
+
+    static Rope of(String text) {
+        Rope rope = null;
+        for (int i = 0; i < text.length(); i += MAX_CHUNK) {
+            rope = merge(rope, leaf(text.substring(i, Math.min(text.length(), i + MAX_CHUNK))));
+        }
+        return rope;
+    }
+
+    static Rope insert(Rope rope, int pos, String text) {
+        if (text.isEmpty()) return rope;
+        Rope inserted = insertInChunk(rope, pos, text);
+        if (inserted != null) return inserted;
+
+        // chunk가 넘치면 새 chunk들을 만들어 root 기준으로 split/merge (treap 우선순위 유지)
+        Rope[] parts = new Rope[2];
+        split(rope, pos, parts);
+        return merge(merge(parts[0], of(text)), parts[1]);
+    }
+
+    // pos가 속한 chunk에 그대로 끼워 넣을 수 있으면 경로만 새로 만들고, 넘치면 null
+    private static Rope insertInChunk(Rope rope, int pos, String text) {
+        if (rope == null) return null;
+
+        int leftLength = length(rope.left);
+        int chunkEnd = leftLength + rope.chunk.length();
+        if (pos < leftLength) {
+            Rope left = insertInChunk(rope.left, pos, text);
+            return left == null ? null : rope.with(left, rope.chunk, rope.right);
+        }
+        if (pos > chunkEnd) {
+            Rope right = insertInChunk(rope.right, pos - chunkEnd, text);
+            return right == null ? null : rope.with(rope.left, rope.chunk, right);
+        }
+        if (rope.chunk.length() + text.length() > MAX_CHUNK) return null;
+
+        int offset = pos - leftLength;
+        return rope.with(rope.left, rope.chunk.substring(0, offset) + text + rope.chunk.substring(offset), rope.right);
+    }
+
+    // [start, end) 삭제
+    static Rope delete(Rope rope, int start, int end) {
+        if (rope == null || start >= end) return rope;
+
+        int leftLength = length(rope.left);
+        int chunkEnd = leftLength + rope.chunk.length();
+        if (end <= leftLength) {
+            return rope.with(delete(rope.left, start, end), rope.chunk, rope.right);
+        }
+        if (start >= chunkEnd) {
+            return rope.with(rope.left, rope.chunk, delete(rope.right, start - chunkEnd, end - chunkEnd));
+        }
+        if (start >= leftLength && end <= chunkEnd) {
+            // 한 chunk 안에서 끝나는 삭제 (타이핑 중 대부분)
+            String remain = rope.chunk.substring(0, start - leftLength) + rope.chunk.substring(end - leftLength);
+            if (!remain.isEmpty()) {
+                return rope.with(rope.left, remain, rope.right);
+            }
+            return merge(rope.left, rope.right);
+        }
+        // 여러 chunk에 걸친 삭제
+        Rope[] head = new Rope[2];
+        Rope[] tail = new Rope[2];
+        split(rope, start, head);
+        split(head[1], end - start, tail);
+        return merge(head[0], tail[1]);
+    }
+
+    static String toString(Rope rope) {
+        StringBuilder sb = new StringBuilder(length(rope));
+        append(rope, sb);
+        return sb.toString();
+    }
+
+    private static void append(Rope rope, StringBuilder sb) {
+        while (rope != null) {
+            append(rope.left, sb);
+            sb.append(rope.chunk);
+            rope = rope.right;
+        }
+    }
+
+    private static Rope leaf(String chunk) {
+        return new Rope(null, chunk, ThreadLocalRandom.current().nextInt(), null);
+    }
+
+    // 앞의 k 글자는 out[0], 나머지는 out[1] (chunk 중간이면 chunk를 나눔)
+    private static void split(Rope rope, int k, Rope[] out) {
+        if (rope == null) {
+            out[0] = out[1] = null;
+            return;
+        }
+        int leftLength = length(rope.left);
+        int chunkEnd = leftLength + rope.chunk.length();
+        if (k <= leftLength) {
+            split(rope.left, k, out);
+            out[1] = rope.with(out[1], rope.chunk, rope.right);
+        } else if (k >= chunkEnd) {
+            split(rope.right, k - chunkEnd, out);
+            out[0] = rope.with(rope.left, rope.chunk, out[0]);
+        } else {
+            int offset = k - leftLength;
+            out[0] = rope.with(rope.left, rope.chunk.substring(0, offset), null);
+            out[1] = rope.with(null, rope.chunk.substring(offset), rope.right);
+        }
+    }
+
+    private static Rope merge(Rope a, Rope b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            return a.with(a.left, a.chunk, merge(a.right, b));
+        }
+        return b.with(merge(a, b.left), b.chunk, b.right);
+    }
+}
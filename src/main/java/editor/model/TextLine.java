@@ -2,79 +2,183 @@ package editor.model;
 
 import lombok.Getter;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
+/**
+ * 문서의 한 줄
+ * 라인 수가 많아도 부담이 없도록 필드를 원시 타입 위주로 유지함
+ * - text : Latin-1로 표현 가능하면 byte[] (1 byte/char), 아니면 char[] (2 byte/char)
+ *          ROPE_THRESHOLD 글자 이상인 긴 라인은 Rope (글자 삽입/삭제가 O(log n))
+ * - lockHandle : lock을 가진 clientID의 handle (ClientHandles), 0이면 lock 없음
+ * - lastEditedMillis : epoch millis
+ */
 public class TextLine {
+    // 이 길이 이상이면 Rope로 보관, 절반 아래로 줄어들면 다시 배열로 되돌림
+    static final int ROPE_THRESHOLD = 2048;
+
     @Getter
     private final long lineID;
+    // byte[], char[] 또는 Rope, 한 번의 volatile 쓰기로 내용을 교체하기 위해 하나의 참조로 보관
+    private volatile Object text;
+    private int lockHandle = ClientHandles.NONE;
     @Getter
-    private String content;
-    private boolean lock = false;
-    private String lockClientID = null;
-    @Getter
-    private LocalDateTime lastEdited;
+    private volatile long lastEditedMillis;
 
     public TextLine(long lineID, String content) {
         this.lineID = lineID;
-        this.content = content;
-        this.lastEdited = LocalDateTime.now();
+        this.text = encode(content);
+        this.lastEditedMillis = System.currentTimeMillis();
+    }
+
+    // 직렬화된 라인 복원용 (lock/수정 시각까지 그대로 복원)
+    public static TextLine restore(long lineID, String content, String lockClientID, long lastEditedMillis) {
+        TextLine line = new TextLine(lineID, content == null ? "" : content);
+        if (lockClientID != null) {
+            line.lockHandle = ClientHandles.handleOf(lockClientID);
+        }
+        line.lastEditedMillis = lastEditedMillis;
+        return line;
     }
 
     public TextLine copy() {
-        TextLine copied = new TextLine(this.lineID, this.content);
+        TextLine copied = new TextLine(this.lineID, "");
+        // 내용 배열은 교체만 하고 수정하지 않으므로 그대로 공유해도 안전
+        copied.text = this.text;
         // 락 상태와 클라이언트 정보까지 복사
-        copied.lock = this.lock;
-        copied.lockClientID = this.lockClientID;
-        copied.lastEdited = this.lastEdited; // LocalDateTime은 불변 객체라 그대로 복사해도 안전
+        copied.lockHandle = this.lockHandle;
+        copied.lastEditedMillis = this.lastEditedMillis;
         return copied;
     }
 
+    public String getContent() {
+        Object current = text;
+        if (current instanceof byte[]) {
+            return new String((byte[]) current, StandardCharsets.ISO_8859_1);
+        }
+        if (current instanceof char[]) {
+            return new String((char[]) current);
+        }
+        return Rope.toString((Rope) current);
+    }
+
+    public int length() {
+        Object current = text;
+        if (current instanceof byte[]) return ((byte[]) current).length;
+        if (current instanceof char[]) return ((char[]) current).length;
+        return Rope.length((Rope) current);
+    }
+
+    /**
+     * pos 위치에 글자 삽입 (범위 밖이면 끝에 붙임)
+     * 긴 라인은 전체 문자열을 다시 만들지 않고 Rope에서 바뀐 경로만 새로 만듦
+     */
+    public synchronized void insertText(int pos, String insert) {
+        Object current = text;
+        int length = length();
+        int at = (pos < 0 || pos > length) ? length : pos; // 안전검사
+        if (current instanceof Rope || length + insert.length() >= ROPE_THRESHOLD) {
+            this.text = Rope.insert(toRope(current), at, insert);
+        } else {
+            String old = getContent();
+            this.text = encode(old.substring(0, at) + insert + old.substring(at));
+        }
+        this.lastEditedMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * [start, end) 글자 삭제 (범위는 라인 길이에 맞게 잘라냄)
+     */
+    public synchronized void deleteText(int start, int end) {
+        Object current = text;
+        int length = length();
+        int from = Math.max(0, Math.min(start, length));
+        int to = Math.max(from, Math.min(end, length));
+        if (from == to) return;
+        if (current instanceof Rope) {
+            Rope rope = Rope.delete((Rope) current, from, to);
+            this.text = Rope.length(rope) < ROPE_THRESHOLD / 2 ? encodeFlat(Rope.toString(rope)) : rope;
+        } else {
+            String old = getContent();
+            this.text = encodeFlat(old.substring(0, from) + old.substring(to));
+        }
+        this.lastEditedMillis = System.currentTimeMillis();
+    }
+
     public void setContent(String content) {
-        this.content = content;
-        this.lastEdited = LocalDateTime.now();
+        this.text = encode(content);
+        this.lastEditedMillis = System.currentTimeMillis();
+    }
+
+    public LocalDateTime getLastEdited() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(lastEditedMillis), ZoneId.systemDefault());
     }
 
     public synchronized boolean acquireLock(String clientID) {
-        if (lock) {
-            if(lockClientID.equals(clientID)) return true;
-            return false;
+        int handle = ClientHandles.handleOf(clientID);
+        if (lockHandle != ClientHandles.NONE) {
+            return lockHandle == handle;
         }
-        lock = true;
-        lockClientID = clientID;
+        lockHandle = handle;
         return true;
     }
 
     public synchronized boolean releaseLock(String clientID) {
-        if (!lock || !clientID.equals(lockClientID)) return false;
-        lock = false;
-        lockClientID = null;
+        if (lockHandle == ClientHandles.NONE || clientID == null
+                || lockHandle != ClientHandles.handleOf(clientID)) return false;
+        lockHandle = ClientHandles.NONE;
         return true;
     }
 
     public synchronized boolean isLocked() {
-        return lock;
+        return lockHandle != ClientHandles.NONE;
     }
 
     public synchronized String getLockClientID() {
-        if (lockClientID == null) {
+        String clientID = ClientHandles.nameOf(lockHandle);
+        if (clientID == null) {
             return "";
         }
-        return lockClientID;
+        return clientID;
     }
 
     // 서버가 lock 정보 수정할 때 사용
-    public void setLockInfoByServer(LockStatus lock, String lockClientID) {
-        this.lock = lock.toBoolean();
-
+    public synchronized void setLockInfoByServer(LockStatus lock, String lockClientID) {
         if (lock == LockStatus.RELEASE) {
-            this.lockClientID = null;
+            this.lockHandle = ClientHandles.NONE;
         } else {
-            this.lockClientID = lockClientID;
+            this.lockHandle = ClientHandles.handleOf(lockClientID);
         }
     }
 
-    public void resetLockInfo() {
-        this.lock = false;
-        this.lockClientID = null;
+    public synchronized void resetLockInfo() {
+        this.lockHandle = ClientHandles.NONE;
+    }
+
+    private static Rope toRope(Object current) {
+        if (current instanceof Rope) return (Rope) current;
+        if (current instanceof byte[]) {
+            return Rope.of(new String((byte[]) current, StandardCharsets.ISO_8859_1));
+        }
+        return Rope.of(new String((char[]) current));
+    }
+
+    private static Object encode(String content) {
+        if (content.length() >= ROPE_THRESHOLD) {
+            return Rope.of(content);
+        }
+        return encodeFlat(content);
+    }
+
+    // Latin-1 범위면 byte[], 아니면 char[]로 저장
+    private static Object encodeFlat(String content) {
+        for (int i = 0; i < content.length(); i++) {
+            if (content.charAt(i) > 0xFF) {
+                return content.toCharArray();
+            }
+        }
+        return content.getBytes(StandardCharsets.ISO_8859_1);
     }
 }
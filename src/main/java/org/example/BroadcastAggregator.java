@@ -0,0 +1,141 @@
+package org.example;
+
+import org.example.dto.EventContent;
+import org.example.util.WireCodec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+/**
+ * 방마다 짧은 tick 동안 적용된 연산을 모아 한 프레임으로 broadcast
+ * - 직전 프레임을 보낸 지 tick 이상 지났으면(한가한 상태) 기다리지 않고 바로 전송
+ * - 그 안에 들어온 연산은 쌓아뒀다가 tick이 끝날 때 한 번에 전송 → 부하가 클수록 프레임당 연산 수가 늘어남
+ * 프레임 형식은 보낼 때 방에 맞는 codec으로 정함 (JSON이면 연산 하나는 객체, 여러 개는 배열)
+ * lock 응답 등 다른 이벤트를 방에 보내기 전에는 flush(room)으로 먼저 비워서 순서를 지킴
+ * 프레임 인코딩과 전송은 출력 파이프라인 단계에서 처리 (방 스레드는 연산을 넘기기만 함)
+ */
+public class BroadcastAggregator implements AutoCloseable {
+    static final int DEFAULT_TICK_MILLIS = Integer.getInteger("editor.broadcast.tick.ms", 15);
+    private static final long STATS_INTERVAL_SECONDS = 10;
+
+    private final BiConsumer<DocumentRoom, String> sender;
+    private final Function<DocumentRoom, WireCodec> codecs;
+    private final OutboundPipeline pipeline;
+    // 통계에 같이 찍는 방 입력 큐 최대 길이
+    private final IntSupplier inboundDepth;
+    private final long tickNanos;
+    private final ScheduledExecutorService scheduler;
+    private final Map<DocumentRoom, RoomQueue> queues = new ConcurrentHashMap<>();
+
+    // 통계 (프레임 수, 연산 수, 프레임 payload 글자 수 : 프레임마다 다시 인코딩하지 않도록 length()로 셈)
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong ops = new AtomicLong();
+    private final AtomicLong chars = new AtomicLong();
+
+    public BroadcastAggregator(BiConsumer<DocumentRoom, String> sender, Function<DocumentRoom, WireCodec> codecs,
+                               OutboundPipeline pipeline, IntSupplier inboundDepth) {
+        this(sender, codecs, pipeline, inboundDepth, DEFAULT_TICK_MILLIS);
+    }
+
+    public BroadcastAggregator(BiConsumer<DocumentRoom, String> sender, Function<DocumentRoom, WireCodec> codecs,
+                               OutboundPipeline pipeline, IntSupplier inboundDepth, int tickMillis) {
+        this.sender = sender;
+        this.codecs = codecs;
+        this.pipeline = pipeline;
+        this.inboundDepth = inboundDepth;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "broadcast-tick");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(this::printStats, STATS_INTERVAL_SECONDS, STATS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 방에 적용된 연산 broadcast 요청 (한가하면 바로, 아니면 현재 tick이 끝날 때 전송)
+     */
+    public void submit(DocumentRoom room, EventContent op) {
+        RoomQueue queue = queues.computeIfAbsent(room, RoomQueue::new);
+        synchronized (queue) {
+            long now = System.nanoTime();
+            queue.pending.add(op);
+            if (queue.scheduled) return;
+            long wait = queue.lastSentNanos + tickNanos - now;
+            if (wait <= 0) {
+                send(queue);
+            } else {
+                queue.scheduled = true;
+                // tick 끝의 전송은 방 스레드에서 (출력 lane이 가득 차 기다리게 되더라도 다른 방의 tick은 막지 않음)
+                scheduler.schedule(() -> room.execute(() -> flush(room)), wait, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * 쌓인 연산을 바로 전송 (방에 다른 이벤트를 보내기 전에 호출)
+     */
+    public void flush(DocumentRoom room) {
+        RoomQueue queue = queues.get(room);
+        if (queue == null) return;
+        synchronized (queue) {
+            queue.scheduled = false;
+            if (!queue.pending.isEmpty()) {
+                send(queue);
+            }
+        }
+    }
+
+    // queue 모니터를 잡은 상태에서 호출 (파이프라인에 넘기는 순서 = 전송 순서)
+    private void send(RoomQueue queue) {
+        List<EventContent> batch = queue.pending;
+        queue.pending = new ArrayList<>();
+        queue.lastSentNanos = System.nanoTime();
+
+        DocumentRoom room = queue.room;
+        pipeline.submit(room, () -> {
+            String frame = codecs.apply(room).encodeOps(batch);
+            frames.incrementAndGet();
+            ops.addAndGet(batch.size());
+            chars.addAndGet(frame.length());
+            return frame;
+        }, frame -> sender.accept(room, frame));
+    }
+
+    private void printStats() {
+        long f = frames.getAndSet(0);
+        long o = ops.getAndSet(0);
+        long c = chars.getAndSet(0);
+        String depths = "inbound=" + inboundDepth.getAsInt() + "/" + RoomActor.QUEUE_CAPACITY + ", " + pipeline.takePeakDepths();
+        if (f == 0) return;
+        System.out.printf("[BROADCAST] %.1f frames/s, %.1f ops/s, %.1f chars/s, peak queues %s (last %ds)%n",
+                (double) f / STATS_INTERVAL_SECONDS, (double) o / STATS_INTERVAL_SECONDS,
+                (double) c / STATS_INTERVAL_SECONDS, depths, STATS_INTERVAL_SECONDS);
+    }
+
+    @Override
+    public void close() {
+        queues.keySet().forEach(this::flush);
+        scheduler.shutdown();
+    }
+
+    private static class RoomQueue {
+        final DocumentRoom room;
+        List<EventContent> pending = new ArrayList<>();
+        long lastSentNanos = System.nanoTime() - Long.MAX_VALUE / 2; // 처음 연산은 바로 전송
+        boolean scheduled = false;
+
+        RoomQueue(DocumentRoom room) {
+            this.room = room;
+        }
+    }
+}
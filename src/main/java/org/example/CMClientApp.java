@@ -16,10 +16,14 @@ import kr.ac.konkuk.ccslab.cm.info.CMInteractionInfo;
 import kr.ac.konkuk.ccslab.cm.stub.CMClientStub;
 import lombok.Getter;
 import org.example.dto.EventContent;
+import org.example.util.WireCodec;
+import org.example.util.WireCodecs;
 
 import javax.swing.*;
 import javax.swing.event.CaretEvent;
 import javax.swing.event.CaretListener;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import java.awt.*;
@@ -27,12 +31,21 @@ import java.awt.event.*;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
 import javax.swing.text.SimpleAttributeSet;
 import javax.swing.text.StyleConstants;
 
 import static java.lang.System.exit;
 
 public class CMClientApp extends JFrame {
+    // raw 뷰 / lock gutter를 다시 그리는 최소 간격 (한 프레임)
+    static final int FRAME_MILLIS = Integer.getInteger("editor.view.frame.ms", 16);
+    // 화살표로 라인을 옮길 때 커서가 이 시간 동안 멈춰야 lock을 요청함
+    static final int LOCK_SETTLE_MILLIS = Integer.getInteger("editor.lock.settle.ms", 150);
+    // 서버가 요청을 버렸다고 알려오면 이 시간 뒤에 문서 전체를 다시 받음
+    static final int BUSY_RESYNC_MILLIS = Integer.getInteger("editor.busy.resync.ms", 500);
+
     @Getter
     private CMClientStub clientStub;
     private CMClientEventHandler m_eventHandler;
@@ -44,8 +57,20 @@ public class CMClientApp extends JFrame {
     final JTextArea rightArea = new JTextArea();
     private final DocumentClientController controller;
     private final JSplitPane splitPane;
+    private final Timer rawTimer;
+    // 커서가 멈추면 요청할 lock 라인 (-2: 없음, -1은 release 요청이므로 사용 안 함)
+    private final Timer lockTimer;
+    private volatile long pendingLockLineID = -2L;
+    private final Timer busyTimer;
     @Getter
     private JComboBox<DocumentStorage.DocumentMeta> documentSelect;
+    // 글자 단위 연산을 모아서 한 프레임으로 전송
+    private final OutboundOpBuffer opBuffer = new OutboundOpBuffer(this::sendOps);
+    // 서버와 협상한 연산 프레임 형식 (CODEC_ACK를 받기 전에는 JSON)
+    private volatile WireCodec wireCodec = WireCodecs.JSON;
+    // 받은 문서에 반영된 마지막 서버 연산 (-1: 아직 문서를 못 받음)
+    @Getter
+    private volatile long documentRevision = -1L;
 
     public CMClientApp() {
         super("Text Editor Client");
@@ -58,6 +83,15 @@ public class CMClientApp extends JFrame {
 //        leftArea = new JTextArea();
 //        rightArea = new JTextArea();
         rightArea.setEditable(false);
+        rawTimer = new Timer(FRAME_MILLIS, e -> controller.flushRaw(rightArea, lockPane));
+        rawTimer.setRepeats(false);
+        lockTimer = new Timer(LOCK_SETTLE_MILLIS, e -> flushPendingLock());
+        lockTimer.setRepeats(false);
+        busyTimer = new Timer(BUSY_RESYNC_MILLIS, e -> {
+            opBuffer.flush();
+            requestResync(0L); // history 밖이므로 서버가 현재 문서 전체를 보냄
+        });
+        busyTimer.setRepeats(false);
 
         // font
         leftArea.setFont(new Font("Arial", Font.PLAIN, 14));
@@ -75,10 +109,11 @@ public class CMClientApp extends JFrame {
         lockPane.getStyledDocument().setParagraphAttributes(
                 0, lockPane.getDocument().getLength(), center, false);
 
+        JScrollPane leftScroll = new JScrollPane(leftArea);
         JSplitPane rawSplit = new JSplitPane(
                 JSplitPane.HORIZONTAL_SPLIT,
                 new JScrollPane(lockPane),
-                new JScrollPane(leftArea)
+                leftScroll
         );
         rawSplit.setDividerSize(3);
         rawSplit.setResizeWeight(0);
@@ -147,7 +182,7 @@ public class CMClientApp extends JFrame {
         JButton btnRender = new JButton("Render");
         btnRender.addActionListener(e -> {
             controller.render(-1, leftArea); // 모든 데이터 렌더링
-            controller.renderRaw(rightArea, lockPane);
+            controller.renderRaw(rightArea, lockPane); // 모아두지 않고 바로 전체
         });
         toolbar.add(btnRender);
 
@@ -166,6 +201,9 @@ public class CMClientApp extends JFrame {
         leftArea.addKeyListener(new KeyAdapter() {
             @Override
             public void keyPressed(KeyEvent e) {
+                // 스크롤로 커서 라인이 화면 구간 밖에 있으면 먼저 되돌림
+                controller.revealCaret(leftArea);
+
                 // ↑↓ 키 눌림 여부를 추적하는 KeyListener 추가
                 if (e.getKeyCode() == KeyEvent.VK_UP || e.getKeyCode() == KeyEvent.VK_DOWN || e.getKeyCode() == KeyEvent.VK_LEFT || e.getKeyCode() == KeyEvent.VK_RIGHT) {
                     arrowKeyPressed.set(true);
@@ -176,6 +214,11 @@ public class CMClientApp extends JFrame {
                         keyCode == KeyEvent.VK_LEFT || keyCode == KeyEvent.VK_RIGHT ||
                         keyCode == KeyEvent.VK_UP || keyCode == KeyEvent.VK_DOWN;
 
+                // 화살표 외의 키를 누르면 기다리던 lock 요청을 바로 보냄
+                if (!isArrow) {
+                    flushPendingLock();
+                }
+
                 // 편집 가능한지 체크
                 if (!controller.isEditable()) {
                     // Allow arrow keys to bypass the edit lock to enable navigation within the text area.
@@ -190,6 +233,8 @@ public class CMClientApp extends JFrame {
                         int oldPos = leftArea.getCaretPosition();
                         int oldLine = leftArea.getLineOfOffset(oldPos);
                         TextLine toRemoveLine = controller.getTextLineByOffset(oldLine);
+                        int oldIndex = controller.getViewBase() + oldLine; // 문서 라인 index
+                        int oldDocPos = controller.toDocOffset(oldPos);
 
                         int lineStart = leftArea.getLineStartOffset(oldLine);
                         int offsetInLine = oldPos - lineStart;
@@ -197,15 +242,15 @@ public class CMClientApp extends JFrame {
                         boolean changed = controller.handleKeyEvent(e, leftArea);
                         if (changed) {
                             controller.render(-1, leftArea);
-                            controller.renderRaw(rightArea, lockPane);
-                            int newPos = Math.max(0, oldPos - 1);
+                            renderRaw();
+                            int newPos = controller.toAreaOffset(Math.max(0, oldDocPos - 1));
                             int docLen = leftArea.getDocument().getLength();
                             leftArea.setCaretPosition(Math.min(newPos, docLen));
 
-                            if (offsetInLine == 0 && oldPos != 0) { // 첫번째 줄이 아닌 라인의 맨 처음이어야함
+                            if (offsetInLine == 0 && oldIndex > 0) { // 첫번째 줄이 아닌 라인의 맨 처음이어야함
                                 onDeleteLine((long) toRemoveLine.getLineID());
-                            } else {
-                                onEditInLine((long) toRemoveLine.getLineID(), toRemoveLine.getContent());
+                            } else if (offsetInLine > 0) {
+                                onDeleteText(toRemoveLine.getLineID(), offsetInLine - 1, 1);
                             }
                         }
                     } catch (BadLocationException ex) {
@@ -219,6 +264,7 @@ public class CMClientApp extends JFrame {
                         int oldLine = leftArea.getLineOfOffset(oldPos);
                         TextLine currLine = controller.getTextLineByOffset(oldLine);
                         long oldLineID = currLine.getLineID();
+                        int oldIndex = controller.getViewBase() + oldLine;
 
                         int lineStart = leftArea.getLineStartOffset(oldLine);
                         int offsetInLine = oldPos - lineStart;
@@ -228,8 +274,8 @@ public class CMClientApp extends JFrame {
                         if (!changed) return;
 
                         controller.render(-1, leftArea);
-                        controller.renderRaw(rightArea, lockPane);
-                        int newStart = leftArea.getLineStartOffset(oldLine + 1);
+                        renderRaw();
+                        int newStart = controller.revealLine(oldIndex + 1, leftArea);
 
                         // new line, split line 이벤트 전송
                         if (offsetInLine >= end) { // 엔터 뒤에 문자열이 없었다면
@@ -255,6 +301,8 @@ public class CMClientApp extends JFrame {
                     int oldLine = leftArea.getLineOfOffset(oldPos);
                     TextLine currLine = controller.getTextLineByOffset(oldLine);
                     long oldLineID = currLine.getLineID();
+                    int oldIndex = controller.getViewBase() + oldLine;
+                    int oldDocPos = controller.toDocOffset(oldPos);
 
                     int lineStart = leftArea.getLineStartOffset(oldLine);
                     int offsetInLine = oldPos - lineStart;
@@ -262,27 +310,27 @@ public class CMClientApp extends JFrame {
 
                     // DELETE 처리 전에 다음 라인 정보 저장 (병합 시 필요)
                     TextLine nextLine = null;
-                    if (offsetInLine >= content.length() && oldLine < controller.getAllLines().size() - 1) {
+                    if (offsetInLine >= content.length() && oldIndex < controller.getLineCount() - 1) {
                         nextLine = controller.getTextLineByOffset(oldLine + 1);
                     }
 
                     boolean changed = controller.handleKeyEvent(e, leftArea);
                     if (changed) {
                         controller.render(-1, leftArea);
-                        controller.renderRaw(rightArea, lockPane);
+                        renderRaw();
 
                         // 커서 위치 유지 (DELETE는 커서가 움직이지 않음)
                         int docLen = leftArea.getDocument().getLength();
-                        leftArea.setCaretPosition(Math.min(oldPos, docLen));
+                        leftArea.setCaretPosition(Math.min(controller.toAreaOffset(oldDocPos), docLen));
 
                         // 라인 끝에서 DELETE이고 다음 라인이 병합된 경우
                         if (nextLine != null) {
                             // 다음 라인이 현재 라인에 병합됨 - 새로운 병합 이벤트 전송
-                            TextLine updatedCurrentLine = controller.getTextLineByOffset(oldLine);
+                            TextLine updatedCurrentLine = controller.getTextLineByLineId(oldLineID).orElse(currLine);
                             onMergeNextLine(oldLineID, nextLine.getLineID(), updatedCurrentLine.getContent());
                         } else if (offsetInLine < content.length()) {
                             // 라인 중간에서 DELETE: 한 글자 삭제
-                            onEditInLine(oldLineID, currLine.getContent());
+                            onDeleteText(oldLineID, offsetInLine, 1);
                         }
                     }
                 } catch (BadLocationException ex) {
@@ -301,32 +349,8 @@ public class CMClientApp extends JFrame {
                 if (!controller.isEditable()) {
                     e.consume();
                     Toolkit.getDefaultToolkit().beep();
-                    return;
                 }
-
-                SwingUtilities.invokeLater(() -> {
-                    char c = e.getKeyChar();
-                    if (Character.isLetterOrDigit(c) || Character.isWhitespace(c) && !isEnter(c) || isPunctuation(c)) {
-                        try {
-                            int pos = leftArea.getCaretPosition(); // 전체 caret 위치
-                            int offset = leftArea.getLineOfOffset(pos); // 줄 번호
-                            int start = leftArea.getLineStartOffset(offset);
-                            int end = leftArea.getLineEndOffset(offset);
-                            String currentLine = leftArea.getText(start, end - start);
-                            if (currentLine.endsWith("\r\n")) {
-                                currentLine = currentLine.substring(0, currentLine.length() - 2);
-                            } else if (currentLine.endsWith("\n") || currentLine.endsWith("\r")) {
-                                currentLine = currentLine.substring(0, currentLine.length() - 1);
-                            }
-                            TextLine textLine = controller.getTextLineByOffset(offset);
-                            long lineId = textLine.getLineID();
-
-                            onEditInLine(lineId, currentLine);
-                        } catch (BadLocationException ex) {
-                            ex.printStackTrace();
-                        }
-                    }
-                });
+                // 입력한 글자는 textArea가 넣은 뒤 DocumentListener에서 위치 그대로 전송
             }
 
 //            @Override
@@ -337,15 +361,6 @@ public class CMClientApp extends JFrame {
 //                }
 //            }
 
-            private boolean isPunctuation(char c) {
-                // 필요시 여기에 문장부호 더 추가 가능
-                return "!@#$%^&*()_+-={}[]|\\:;\"\'<>,.?/`~".indexOf(c) >= 0;
-            }
-
-            private boolean isEnter(char c) {
-                return "\n".indexOf(c) >= 0;
-            }
-
         });
 
         leftArea.addMouseListener(new MouseAdapter() {
@@ -353,50 +368,88 @@ public class CMClientApp extends JFrame {
             public void mouseClicked(MouseEvent e) {
                 controller.handleMouseClick(e, leftArea);
                 controller.render(-1, leftArea);
-                controller.renderRaw(rightArea, lockPane);
+                renderRaw();
             }
         });
 
+        /*
+         * 사용자 입력(타이핑, 선택 영역 덮어쓰기, 붙여넣기, IME 조합)은 모두 DocumentEvent로 들어옴
+         * 이벤트의 offset/length는 실제로 바뀐 범위 그대로이고 순서대로 오므로 그대로 글자 단위 연산으로 전송
+         * 렌더링(모델 → textArea) 중에 생긴 이벤트는 무시
+         * lock이 없는 라인이나 여러 줄에 걸친 변경은 보내지 않고 모델 기준으로 화면을 되돌림
+         */
         leftArea.getDocument().addDocumentListener(new DocumentListener() {
             @Override
             public void insertUpdate(DocumentEvent e) {
-                updateModelLine(e);
+                localEdit(e, true);
             }
 
             @Override
             public void removeUpdate(DocumentEvent e) {
-                updateModelLine(e);
+                localEdit(e, false);
             }
 
             @Override
             public void changedUpdate(DocumentEvent e) {
-                updateModelLine(e);
+                // 속성 변경은 내용과 무관
             }
 
-            private void updateModelLine(DocumentEvent e) {
-                // ** suppress 플래그가 켜져 있으면 아무것도 하지 않음 **
-//                if (controller.isSuppressDocumentEvents()) {
-//                    return;
-//                }
+            private void localEdit(DocumentEvent e, boolean insert) {
+                if (controller.isSuppressDocumentEvents()) return;
+                Document doc = e.getDocument();
+                Element root = doc.getDefaultRootElement();
+                try {
+                    int areaLine = root.getElementIndex(e.getOffset());
+                    TextLine line = controller.getTextLineByOffset(areaLine);
+                    Element row = root.getElement(areaLine);
+                    String content = doc.getText(row.getStartOffset(), row.getEndOffset() - 1 - row.getStartOffset());
+                    // 줄 구조가 바뀌었거나(여러 줄 붙여넣기/선택 삭제) 편집할 수 없는 라인 → 보내지 않고 되돌림
+                    if (e.getChange(root) != null || !controller.isEditable(line.getLineID())
+                            || !controller.updateLineFromUI(areaLine, content)) {
+                        SwingUtilities.invokeLater(() -> {
+                            controller.render(-1, leftArea);
+                            renderRaw();
+                        });
+                        return;
+                    }
+                    int position = e.getOffset() - row.getStartOffset();
+                    if (insert) {
+                        onInsertText(line.getLineID(), position, doc.getText(e.getOffset(), e.getLength()));
+                    } else {
+                        onDeleteText(line.getLineID(), position, e.getLength());
+                    }
+                    renderRaw();
+                } catch (BadLocationException ex) {
+                    //noinspection CallToPrintStackTrace
+                    ex.printStackTrace();
+                }
+            }
+        });
 
-                SwingUtilities.invokeLater(() -> {
-                    try {
-                        int offset = e.getOffset();
-                        int lineIndex = leftArea.getLineOfOffset(offset);
-                        int start = leftArea.getLineStartOffset(lineIndex);
-                        int end = leftArea.getLineEndOffset(lineIndex);
-                        String lineText = leftArea.getText(start, end - start).replaceAll("\\r?\\n$", "");
-
-                        // 편집 가능한지 체크
-                        if (controller.isEditable(controller.getTextLineByOffset(lineIndex).getLineID())) {
-                            controller.updateLineFromUI(lineIndex, lineText);
-                        }
-                        controller.renderRaw(rightArea, lockPane);
-                    } catch (Exception ex) {
-                        //noinspection CallToPrintStackTrace
-                        ex.printStackTrace();
+        // 가상 화면 : 스크롤이 구간 가장자리에 가까워지면 구간을 옮기고, 보던 위치는 그대로 유지
+        leftScroll.getViewport().addChangeListener(new ChangeListener() {
+            private boolean scrolling = false;
+
+            @Override
+            public void stateChanged(ChangeEvent e) {
+                if (scrolling) return;
+                JViewport viewport = leftScroll.getViewport();
+                int rowHeight = leftArea.getFontMetrics(leftArea.getFont()).getHeight();
+                Point position = viewport.getViewPosition();
+                int firstRow = position.y / rowHeight;
+                int rows = viewport.getExtentSize().height / rowHeight + 1;
+
+                scrolling = true;
+                try {
+                    int oldBase = controller.getViewBase();
+                    if (controller.scrollWindow(oldBase + firstRow, rows, leftArea)) {
+                        int shift = controller.getViewBase() - oldBase;
+                        viewport.setViewPosition(new Point(position.x, Math.max(0, position.y - shift * rowHeight)));
+                        renderRaw();
                     }
-                });
+                } finally {
+                    scrolling = false;
+                }
             }
         });
 
@@ -413,10 +466,10 @@ public class CMClientApp extends JFrame {
                 suppress = true;
                 try {
                     int dot = e.getDot();
-                    int newLine = leftArea.getLineOfOffset(dot);
+                    int newLine = controller.getViewBase() + leftArea.getLineOfOffset(dot); // 문서 라인 index
                     if (newLine != lastLine) {
                         controller.moveLock(lastLine, newLine);
-                        controller.renderRaw(rightArea, lockPane);
+                        renderRaw();
                         lastLine = newLine;
                     }
                 } catch (BadLocationException ex) {
@@ -493,15 +546,17 @@ public class CMClientApp extends JFrame {
         // 서버에서 이미 모델 업데이트가 완료되었으므로,
         // 클라이언트에서는 직접 모델 업데이트 (중복 로직 방지)
 
+        int index = controller.indexOf(currentLineId);
+
         // 1. 현재 라인 내용 직접 업데이트
         controller.directUpdateLineContent(currentLineId, mergedContent);
 
         // 2. 다음 라인 직접 삭제
         controller.directDeleteLine(nextLineId, clientId);
 
-        // 3. UI 렌더링만 수행
-        controller.render(0, leftArea);
-        controller.renderRaw(rightArea, lockPane);
+        // 3. UI 렌더링만 수행 (두 라인 → 병합된 한 라인)
+        controller.renderLines(index, 2, 1, leftArea);
+        renderRaw();
     }
 
     /**
@@ -512,6 +567,7 @@ public class CMClientApp extends JFrame {
      * @param mergedContent : 병합된 최종 내용
      */
     public void onMergeNextLine(long currentLineId, long nextLineId, String mergedContent) {
+        opBuffer.flush(); // 앞서 입력한 글자가 먼저 반영되어야 함
         System.out.println("send MERGE_NEXT_LINE_REQUEST");
 
         CMUserEvent userEvent = new CMUserEvent();
@@ -532,7 +588,28 @@ public class CMClientApp extends JFrame {
         System.out.println("[CLIENT] Document list request result: " + result);
     }
 
+    // 서버 연산 revision이 빠졌을 때 fromRevision부터 다시 요청
+    /**
+     * 서버 방 큐가 가득 차서 요청이 버려짐 (EDT) : 로컬 문서가 서버와 달라졌을 수 있으므로
+     * 잠시 기다렸다가 문서 전체를 다시 받음, 기다리는 동안 또 버려져도 한 번만 요청
+     */
+    public void roomBusy() {
+        setTextLabel("서버가 바빠 마지막 요청이 처리되지 않았습니다. 문서를 다시 받습니다.");
+        if (!busyTimer.isRunning()) {
+            busyTimer.start();
+        }
+    }
+
+    public void requestResync(long fromRevision) {
+        System.out.println("[CLIENT] Requesting resync from revision " + fromRevision);
+        CMUserEvent event = new CMUserEvent();
+        event.setStringID("RESYNC_REQUEST");
+        event.setEventField(CMInfo.CM_LONG, "fromRevision", String.valueOf(fromRevision));
+        clientStub.send(event, "SERVER");
+    }
+
     public void requestLoadDocument(String docId) {
+        opBuffer.flush(); // 앞서 입력한 글자가 먼저 반영되어야 함
         CMUserEvent event = new CMUserEvent();
         event.setStringID("REQUEST_LOAD_DOCUMENT");
         event.setEventField(CMInfo.CM_STR, "docId", docId);
@@ -540,6 +617,7 @@ public class CMClientApp extends JFrame {
     }
 
     public void requestSaveCurrentDocument(String title) {
+        opBuffer.flush(); // 앞서 입력한 글자가 먼저 반영되어야 함
         System.out.println("[CLIENT] Requesting to save document with title: " + title);
         CMUserEvent event = new CMUserEvent();
         event.setStringID("REQUEST_SAVE_DOCUMENT");
@@ -583,9 +661,29 @@ public class CMClientApp extends JFrame {
         client.login();
     }
 
+    /**
+     * 커서 이동에 따른 lock 요청 : 바로 보내지 않고 LOCK_SETTLE_MILLIS 동안 더 움직이지 않으면 마지막 라인만 요청
+     * 화살표를 누르고 있어도 지나간 라인마다 lock을 주고받지 않음
+     */
+    public void requestServerLockLater(long lineID) {
+        pendingLockLineID = lineID;
+        lockTimer.restart();
+    }
+
+    // 기다리던 lock 요청이 있으면 바로 보냄
+    public void flushPendingLock() {
+        long lineID = pendingLockLineID;
+        if (lineID == -2L) return;
+        requestServerLock(lineID);
+    }
+
     // 서버에 Lock Move 요청
     // lineID가 -1이면 release만 요청함
     public boolean requestServerLock(long lineID) {
+        // 기다리던 커서 이동 lock 요청은 이 요청으로 대체
+        lockTimer.stop();
+        pendingLockLineID = -2L;
+        opBuffer.flush(); // 앞서 입력한 글자가 먼저 반영되어야 함
         CMUserEvent event = new CMUserEvent();
         event.setStringID("LOCK_MOVE_REQUEST");
         event.setHandlerSession("SERVER");
@@ -638,13 +736,19 @@ public class CMClientApp extends JFrame {
             if (bRequestResult) {
                 System.out.println("successfully sent the login request.\n");
 
+                // 지원하는 프레임 형식을 알려주고 서버가 고른 형식은 CODEC_ACK로 받음
+                CMUserEvent helloEvent = new CMUserEvent();
+                helloEvent.setStringID("CODEC_HELLO");
+                helloEvent.setEventField(CMInfo.CM_STR, "codecs", WireCodecs.SUPPORTED);
+                clientStub.send(helloEvent, "SERVER");
+
                 // 창 제목 변경
                 setTitle("Text Editor Client - [" + strUserName + "]");
 
                 // 로그인 성공 시 controller에 ID 세팅 및 렌더링 시작
                 this.controller.initializeController(strUserName);
                 this.controller.render(-1, leftArea);
-                this.controller.renderRaw(rightArea, lockPane);
+                this.renderRaw();
             } else {
                 System.out.println("failed the login request!\n");
             }
@@ -652,6 +756,7 @@ public class CMClientApp extends JFrame {
     }
 
     private void logout() {
+        opBuffer.flush();
         boolean requestResult = clientStub.logoutCM();
         if (requestResult) {
             System.out.println("Logout request sent successfully.");
@@ -690,6 +795,7 @@ public class CMClientApp extends JFrame {
      * @param lineId : 현재 라인의 id
      */
     public void onNewLineAfter(long lineId) {
+        opBuffer.flush(); // 앞서 입력한 글자가 먼저 반영되어야 함
         System.out.println("onNewLineAfter");
 
         CMUserEvent cmUserEvent = new CMUserEvent();
@@ -714,6 +820,7 @@ public class CMClientApp extends JFrame {
      * @param lineId : 현재 라인의 id
      */
     public void onSplitLine(long lineId, Long splitIndex) {
+        opBuffer.flush(); // 앞서 입력한 글자가 먼저 반영되어야 함
         System.out.println("send NEW_SPLIT_LINE_REQUEST");
 
         CMUserEvent cmUserEvent = new CMUserEvent();
@@ -741,6 +848,7 @@ public class CMClientApp extends JFrame {
      * @param lineId : 현재 라인의 id
      */
     public void onDeleteLine(long lineId) {
+        opBuffer.flush(); // 앞서 입력한 글자가 먼저 반영되어야 함
         // todo 서버에 편집 발생 이벤트 전송
 
         System.out.println("send DELETE_LINE_REQUEST");
@@ -761,6 +869,53 @@ public class CMClientApp extends JFrame {
 //        broadcastEvent(eventContent);
     }
 
+    /**
+     * 라인 안에 글자를 입력했을 때 호출하는 함수 (입력한 글자만 전송)
+     *
+     * @param lineId   : 현재 라인의 id
+     * @param position : 라인 안에서 삽입 위치
+     * @param text     : 입력한 문자열
+     */
+    public void onInsertText(long lineId, int position, String text) {
+        opBuffer.insert(lineId, position, text, getMyself().getName());
+    }
+
+    /**
+     * 라인 안에서 글자를 지웠을 때 호출하는 함수 ([position, position + length) 삭제)
+     *
+     * @param lineId   : 현재 라인의 id
+     * @param position : 라인 안에서 삭제 시작 위치
+     * @param length   : 삭제한 글자 수
+     */
+    public void onDeleteText(long lineId, int position, int length) {
+        opBuffer.delete(lineId, position, length, getMyself().getName());
+    }
+
+    /**
+     * 버퍼에서 합쳐진 글자 단위 연산 전송
+     * 하나면 INSERT_TEXT_REQUEST / DELETE_TEXT_REQUEST, 여러 개면 EDIT_BATCH_REQUEST 한 번
+     */
+    private void sendOps(List<EventContent> ops) {
+        CMUserEvent userEvent = new CMUserEvent();
+        if (ops.size() == 1) {
+            EventContent op = ops.get(0);
+            boolean insert = "insert_text".equals(op.getType());
+            userEvent.setStringID(insert ? "INSERT_TEXT_REQUEST" : "DELETE_TEXT_REQUEST");
+            userEvent.setEventField(CMInfo.CM_LONG, "lineId", String.valueOf(op.getLineId()));
+            userEvent.setEventField(CMInfo.CM_INT, "position", String.valueOf(op.getPosition()));
+            if (insert) {
+                userEvent.setEventField(CMInfo.CM_STR, "content", op.getContent());
+            } else {
+                userEvent.setEventField(CMInfo.CM_INT, "length", String.valueOf(op.getLength()));
+            }
+        } else {
+            userEvent.setStringID("EDIT_BATCH_REQUEST");
+            userEvent.setEventField(CMInfo.CM_STR, "ops", wireCodec.encodeOps(ops));
+        }
+        userEvent.setEventField(CMInfo.CM_STR, "clientId", getMyself().getName());
+        clientStub.send(userEvent, "SERVER");
+    }
+
     /**
      * 현재 라인에서 대치 연산을 했을 때 호출하는 함수
      *
@@ -768,6 +923,7 @@ public class CMClientApp extends JFrame {
      * @param content : 대치할 문자열
      */
     public void onEditInLine(long lineId, String content) {
+        opBuffer.flush(); // 앞서 입력한 글자가 먼저 반영되어야 함
         // todo 서버에 편집 발생 이벤트 전송
 
         System.out.println("send ON_EDIT_REQUEST");
@@ -796,7 +952,7 @@ public class CMClientApp extends JFrame {
     private void broadcastEvent(EventContent eventContent) {
         CMUser myself = getMyself();
 
-        ObjectMapper objectMapper = new ObjectMapper();
+        ObjectMapper objectMapper = WireCodecs.objectMapper();
         String dummyEventContent = "";
         try {
             dummyEventContent = objectMapper.writeValueAsString(eventContent);
@@ -819,26 +975,38 @@ public class CMClientApp extends JFrame {
         return interactionInfo.getMyself();
     }
 
+    // 서버에서 받은 연산 적용 : 바뀐 라인만 다시 그림 (범위는 모델을 바꾸기 전에 잡음)
+    // 아래 원격 적용 메서드는 모두 EDT에서 호출됨 (CMClientEventHandler가 넘겨줌), 모델 변경과 renderLines가 한 작업 안에서 일어남
     public void insertText(long lineID, String content, int position) {
+        int index = controller.indexOf(lineID);
         controller.insertText(lineID, content, position);
-        controller.render(-1, leftArea);
-        controller.renderRaw(rightArea, lockPane);
+        controller.renderLines(index, 1, 1, leftArea);
+        renderRaw();
+    }
+
+    public void deleteText(long lineID, int position, int length) {
+        int index = controller.indexOf(lineID);
+        controller.deleteText(lineID, position, position + length);
+        controller.renderLines(index, 1, 1, leftArea);
+        renderRaw();
     }
 
     public void editLine(long lineID, String content, String clientID) {
         System.out.println("editLine");
 
+        int index = controller.indexOf(lineID);
         controller.editLine(lineID, content, clientID);
-        controller.render(0, leftArea);
-        controller.renderRaw(rightArea, lockPane);
+        controller.renderLines(index, 1, 1, leftArea);
+        renderRaw();
     }
 
     public void insertLineAfter(long lineID, String content, String clientId) {
         System.out.println("insertLineAfter");
+        int index = controller.indexOf(lineID);
         controller.insertLineAfter(lineID, content, clientId);
         requestServerLock(controller.getSelectedLineID());
-        controller.render(0, leftArea);
-        controller.renderRaw(rightArea, lockPane);
+        controller.renderLines(index + 1, 0, 1, leftArea);
+        renderRaw();
     }
 
 //    public void insertLineBefore(long lineID) {
@@ -850,17 +1018,24 @@ public class CMClientApp extends JFrame {
 
     public void splitLine(long lineID, long splitIndex, String clientId) {
         System.out.println("splitLine");
+        int index = controller.indexOf(lineID);
         controller.splitLine(lineID, splitIndex, clientId);
 //        requestServerLock(controller.getSelectedLineID());
-        controller.render(0, leftArea);
-        controller.renderRaw(rightArea, lockPane);
+        controller.renderLines(index, 1, 2, leftArea);
+        renderRaw();
     }
 
     public void deleteLine(long lineID, String clientId) {
         System.out.println("deleteLine");
+        int index = controller.indexOf(lineID);
         controller.deleteLine(lineID, clientId);
-        controller.render(0, leftArea);
-        controller.renderRaw(rightArea, lockPane);
+        // 지운 라인의 내용은 이전 라인 끝에 붙으므로 이전 라인도 다시 그림
+        if (index > 0) {
+            controller.renderLines(index - 1, 2, 1, leftArea);
+        } else {
+            controller.renderLines(index, 1, 0, leftArea);
+        }
+        renderRaw();
     }
 
     // 서버에서 lock 정보 업데이트 시 사용
@@ -872,8 +1047,11 @@ public class CMClientApp extends JFrame {
         this.controller.render(lineID, this.leftArea);
     }
 
+    // raw 뷰 / lock gutter 갱신 요청 : 바로 그리지 않고 FRAME_MILLIS 안의 요청을 모아 바뀐 줄만 한 번에 반영
     public void renderRaw() {
-        this.controller.renderRaw(this.rightArea, this.lockPane);
+        if (!rawTimer.isRunning()) {
+            rawTimer.start();
+        }
     }
 
     public void setLockAcquiredLineID(long lineID) {
@@ -895,16 +1073,24 @@ public class CMClientApp extends JFrame {
         return this.controller.getLockAcquiredLineID();
     }
 
+    public void setDocumentRevision(long documentRevision) {
+        this.documentRevision = documentRevision;
+    }
+
+    public void setWireCodec(WireCodec wireCodec) {
+        System.out.println("[CLIENT] wire codec: " + wireCodec.name());
+        this.wireCodec = wireCodec;
+    }
+
     public void pushDocumentModel(long topLineId, List<TextLine> contents) {
         this.controller.pushDocumentModel(topLineId, contents);
         controller.render(0, leftArea);
-        controller.renderRaw(rightArea, lockPane);
+        renderRaw();
     }
 
     public void releaseLockByClientId(String clientId) {
         controller.releaseLockByClientId(clientId);
-        controller.render(0, leftArea);
-        controller.renderRaw(rightArea, lockPane);
+        renderRaw(); // 내용은 그대로, lock 표시만 갱신
     }
 
     public void updateDocumentSelect(List<DocumentStorage.DocumentMeta> docs) {
@@ -1,8 +1,6 @@
 package org.example;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import editor.model.DocumentStorage;
 import editor.model.LockStatus;
 import editor.model.TextLine;
@@ -14,16 +12,35 @@ import kr.ac.konkuk.ccslab.cm.event.handler.CMAppEventHandler;
 import kr.ac.konkuk.ccslab.cm.info.CMInfo;
 import kr.ac.konkuk.ccslab.cm.stub.CMClientStub;
 import org.example.dto.EventContent;
-import org.example.util.CustomGsonUtils;
+import org.example.util.SnapshotStream;
+import org.example.util.WireCodecs;
 
 import javax.swing.*;
+import java.util.Base64;
 import java.util.List;
+import java.util.TreeMap;
 
+/**
+ * client 쪽 CM 이벤트 처리
+ * 디코딩/압축 해제는 CM 이벤트 스레드에서 하고, 모델과 화면을 바꾸는 적용은 EDT로 넘김
+ * (모델 변경과 바뀐 라인 다시 그리기가 같은 EDT 작업 안에서 일어나야 화면 구간/커서 상태와 어긋나지 않음)
+ */
 public class CMClientEventHandler implements CMAppEventHandler {
     private CMClientStub m_clientStub;
 
     private CMClientApp m_clientApp;
 
+    private static final long RESYNC_RETRY_MILLIS = 1000;
+    // 순서가 오기 전에 도착한 서버 연산 (revision → 연산), EDT에서만 사용
+    private final TreeMap<Long, EventContent> waitingOps = new TreeMap<>();
+    private long resyncFrom = -1L;
+    private long resyncRequestedAt = 0L;
+    // 받는 중인 문서 조각 전송 (하나만 진행, 새 전송이 시작되면 이전 것은 버림), CM 이벤트 스레드에서만 사용
+    private String snapshotTransferId;
+    private SnapshotStream.Reader snapshotReader;
+    private long snapshotTopLineId;
+    private long snapshotRevision;
+
     public CMClientEventHandler(CMClientStub m_clientStub, CMClientApp m_clientApp) {
         this.m_clientStub = m_clientStub;
         this.m_clientApp = m_clientApp;
@@ -56,45 +73,25 @@ public class CMClientEventHandler implements CMAppEventHandler {
             case "PUSH_DOCUMENT_MODEL":
                 pushDocumentModel(event);
                 break;
+            case "PUSH_DOCUMENT_CHUNK":
+                receiveDocumentChunk(event);
+                break;
             case "RELEASE_LOGOUT_USER_LOCK":
                 releaseLogoutUserLock(event);
                 break;
+            case "ROOM_BUSY":
+                // 서버가 바빠서 보낸 요청 하나가 버려짐
+                System.out.println("[CLIENT] server dropped " + event.getEventField(CMInfo.CM_STR, "request") + " (room busy)");
+                SwingUtilities.invokeLater(m_clientApp::roomBusy);
+                break;
+            case "CODEC_ACK":
+                m_clientApp.setWireCodec(WireCodecs.negotiate(event.getEventField(CMInfo.CM_STR, "codec")));
+                break;
             case "LOCK_MOVE_RESPONSE": {
                 String clientID = event.getEventField(CMInfo.CM_STR, "client_id");
                 long oldLineID = Long.parseLong(event.getEventField(CMInfo.CM_LONG, "old_line_id"));
                 long lineID = Long.parseLong(event.getEventField(CMInfo.CM_LONG, "line_id"));
-
-                // lock 요청한 클라이언트가 자신이라면 controller.lockAcquiredLineID 업데이트
-                if (clientID.equals(m_clientApp.getClientID())) {
-                    m_clientApp.setLockAcquiredLineID(lineID);
-                }
-
-                // case 1. lock acquire 성공 lineID >= 0
-                if (lineID >= 0L) {
-                    // case 1.1 lock release 없음 (갖고 있던 lock 없음) oldLineID == -1 -> 별도 처리 X
-
-                    // case 1.2 lock release 성공 oldLineID >= 0
-                    if (oldLineID >= 0L) {
-                        // lock release
-                        m_clientApp.setLockInfoByServer(oldLineID, LockStatus.RELEASE, clientID);
-                    }
-
-                    // lock acquire
-                    m_clientApp.setLockInfoByServer(lineID, LockStatus.ACQUIRE, clientID);
-                }
-                // case 2. lock release 성공, acquire 실패 oldLineID >= 0, lineID == -1
-                else if (oldLineID >= 0L) {
-                    // oldLineID - lock release
-                    m_clientApp.setLockInfoByServer(oldLineID, LockStatus.RELEASE, clientID);
-                }
-
-                // selectedLineID가 lock 실패한 상태인데 lock이 풀렸다면 acquire 재요청
-                if (!clientID.equals(m_clientApp.getClientID()) && oldLineID == m_clientApp.getSelectedLineID() && m_clientApp.getLockAcquiredLineID() == -1L) {
-                    m_clientApp.requestServerLock(m_clientApp.getSelectedLineID());
-                }
-
-                // render right area
-                m_clientApp.renderRaw();
+                SwingUtilities.invokeLater(() -> applyLockMove(clientID, oldLineID, lineID));
                 break;
             }
             case "RESPONSE_LIST_DOCUMENTS": {
@@ -102,7 +99,7 @@ public class CMClientEventHandler implements CMAppEventHandler {
                 String docsJson = event.getEventField(CMInfo.CM_STR, "documents");
                 System.out.println("[CLIENT] Received document list JSON: " + docsJson);
                 
-                ObjectMapper om = new ObjectMapper();
+                ObjectMapper om = WireCodecs.objectMapper();
                 try {
                     List<DocumentStorage.DocumentMeta> docs =
                             om.readValue(docsJson,
@@ -123,20 +120,93 @@ public class CMClientEventHandler implements CMAppEventHandler {
         }
     }
 
+    // lock 이동 결과 반영 (EDT)
+    private void applyLockMove(String clientID, long oldLineID, long lineID) {
+        // lock 요청한 클라이언트가 자신이라면 controller.lockAcquiredLineID 업데이트
+        if (clientID.equals(m_clientApp.getClientID())) {
+            m_clientApp.setLockAcquiredLineID(lineID);
+        }
+
+        // case 1. lock acquire 성공 lineID >= 0
+        if (lineID >= 0L) {
+            // case 1.1 lock release 없음 (갖고 있던 lock 없음) oldLineID == -1 -> 별도 처리 X
+
+            // case 1.2 lock release 성공 oldLineID >= 0
+            if (oldLineID >= 0L) {
+                // lock release
+                m_clientApp.setLockInfoByServer(oldLineID, LockStatus.RELEASE, clientID);
+            }
+
+            // lock acquire
+            m_clientApp.setLockInfoByServer(lineID, LockStatus.ACQUIRE, clientID);
+        }
+        // case 2. lock release 성공, acquire 실패 oldLineID >= 0, lineID == -1
+        else if (oldLineID >= 0L) {
+            // oldLineID - lock release
+            m_clientApp.setLockInfoByServer(oldLineID, LockStatus.RELEASE, clientID);
+        }
+
+        // selectedLineID가 lock 실패한 상태인데 lock이 풀렸다면 acquire 재요청
+        if (!clientID.equals(m_clientApp.getClientID()) && oldLineID == m_clientApp.getSelectedLineID() && m_clientApp.getLockAcquiredLineID() == -1L) {
+            m_clientApp.requestServerLock(m_clientApp.getSelectedLineID());
+        }
+
+        // render right area
+        m_clientApp.renderRaw();
+    }
+
     private void releaseLogoutUserLock(CMUserEvent event) {
         System.out.println("releaseLogoutUserLock");
         String clientId = event.getEventField(CMInfo.CM_STR, "clientId");
-        m_clientApp.releaseLockByClientId(clientId);
+        SwingUtilities.invokeLater(() -> m_clientApp.releaseLockByClientId(clientId));
     }
 
     private void pushDocumentModel(CMUserEvent event) {
         long topLineId = Long.parseLong(event.getEventField(CMInfo.CM_LONG, "topLineId"));
         String serializedContents = event.getEventField(CMInfo.CM_STR, "serializedContents");
 
-        Gson gson = CustomGsonUtils.CustomGson();
-        List<TextLine> contents = gson.fromJson(serializedContents, new TypeToken<List<TextLine>>(){}.getType());
+        String revision = event.getEventField(CMInfo.CM_LONG, "revision");
+        List<TextLine> contents = WireCodecs.detect(serializedContents).decodeLines(serializedContents);
+
+        applyDocument(topLineId, contents, revision == null ? 0L : Long.parseLong(revision));
+    }
 
-        m_clientApp.pushDocumentModel(topLineId, contents);
+    // 받은 문서로 교체하고 스냅샷 이후 연산 중 먼저 도착한 것을 이어서 적용 (EDT)
+    private void applyDocument(long topLineId, List<TextLine> contents, long revision) {
+        SwingUtilities.invokeLater(() -> {
+            m_clientApp.pushDocumentModel(topLineId, contents);
+            m_clientApp.setDocumentRevision(revision);
+            applyInOrder();
+        });
+    }
+
+    /**
+     * 압축된 문서 조각 수신 : 조각이 올 때마다 압축을 풀어 라인을 복원하고,
+     * 라인을 모두 받으면 문서를 교체한 뒤 스냅샷 이후 연산을 이어서 적용
+     */
+    private void receiveDocumentChunk(CMUserEvent event) {
+        String transferId = event.getEventField(CMInfo.CM_STR, "transferId");
+        int seq = Integer.parseInt(event.getEventField(CMInfo.CM_INT, "seq"));
+        if (seq == 0) {
+            if (snapshotReader != null) {
+                snapshotReader.close();
+            }
+            snapshotTransferId = transferId;
+            snapshotReader = new SnapshotStream.Reader();
+            snapshotTopLineId = Long.parseLong(event.getEventField(CMInfo.CM_LONG, "topLineId"));
+            snapshotRevision = Long.parseLong(event.getEventField(CMInfo.CM_LONG, "revision"));
+        } else if (snapshotReader == null || !transferId.equals(snapshotTransferId)) {
+            return; // 이미 끝났거나 새 전송으로 대체된 조각
+        }
+
+        snapshotReader.feed(Base64.getDecoder().decode(event.getEventField(CMInfo.CM_STR, "data")));
+        if (!snapshotReader.isComplete()) return;
+
+        System.out.println("[CLIENT] received document: " + snapshotReader.received() + " lines in " + (seq + 1) + " chunks");
+        applyDocument(snapshotTopLineId, snapshotReader.lines(), snapshotRevision);
+        snapshotReader.close();
+        snapshotReader = null;
+        snapshotTransferId = null;
     }
 
     private void processSessionEvent(CMEvent cme) {
@@ -144,12 +214,12 @@ public class CMClientEventHandler implements CMAppEventHandler {
         switch (se.getID()) {
             case CMSessionEvent.SESSION_REMOVE_USER:
 //                System.out.println("[" + se.getUserName() + "] logs out");
-                m_clientApp.setTextLabel("[" + se.getUserName() + "] 님이 로그아웃했습니다");
+                SwingUtilities.invokeLater(() -> m_clientApp.setTextLabel("[" + se.getUserName() + "] 님이 로그아웃했습니다"));
                 break;
 
             case CMSessionEvent.SESSION_ADD_USER:
 //                System.out.println("[" + se.getUserName() + "] logged in");
-                m_clientApp.setTextLabel("[" + se.getUserName() + "] 님이 로그인했습니다.");
+                SwingUtilities.invokeLater(() -> m_clientApp.setTextLabel("[" + se.getUserName() + "] 님이 로그인했습니다."));
                 break;
 
             default:
@@ -166,15 +236,61 @@ public class CMClientEventHandler implements CMAppEventHandler {
         System.out.println(" " + de.getDummyInfo());
 
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        EventContent eventContent = null;
+        // 서버는 tick 동안 모인 연산을 한 프레임으로 보냄 (형식은 첫 글자로 구분)
+        List<EventContent> eventContents;
         try {
-            eventContent = objectMapper.readValue(info, EventContent.class);
+            eventContents = WireCodecs.detect(info).decodeOps(info);
         } catch (Exception e) {
             //noinspection CallToPrintStackTrace
             e.printStackTrace();
+            return;
         }
 
+        // 프레임 하나의 연산은 EDT 작업 하나에서 모델과 화면에 같이 반영
+        SwingUtilities.invokeLater(() -> {
+            for (EventContent eventContent : eventContents) {
+                if (eventContent.getRevision() > 0) {
+                    waitingOps.put(eventContent.getRevision(), eventContent);
+                } else {
+                    applyRemoteOp(eventContent); // revision 없는 서버
+                }
+            }
+            applyInOrder();
+        });
+    }
+
+    /**
+     * 받은 연산을 revision 순서대로 적용 (EDT)
+     * - 이미 스냅샷/이전 연산에 반영된 revision은 버림
+     * - 중간 revision이 빠졌으면 뒤의 연산은 보관해두고 서버에 빠진 부분부터 재전송 요청
+     */
+    private void applyInOrder() {
+        long applied = m_clientApp.getDocumentRevision();
+        if (applied < 0) {
+            return; // 스냅샷을 받으면 그 이후 것만 남김
+        }
+        waitingOps.headMap(applied, true).clear();
+        while (!waitingOps.isEmpty() && waitingOps.firstKey() == applied + 1) {
+            EventContent next = waitingOps.pollFirstEntry().getValue();
+            applied = next.getRevision();
+            m_clientApp.setDocumentRevision(applied);
+            applyRemoteOp(next);
+        }
+
+        if (waitingOps.isEmpty()) {
+            resyncFrom = -1L;
+            return;
+        }
+        // 같은 구간은 응답을 기다리는 동안 다시 요청하지 않음 (응답이 유실됐으면 잠시 후 재요청)
+        long now = System.currentTimeMillis();
+        if (resyncFrom != applied + 1 || now - resyncRequestedAt > RESYNC_RETRY_MILLIS) {
+            resyncFrom = applied + 1;
+            resyncRequestedAt = now;
+            m_clientApp.requestResync(resyncFrom);
+        }
+    }
+
+    private void applyRemoteOp(EventContent eventContent) {
         String senderId = eventContent.getClientId();
         String myId = m_clientApp.getMyself().getName();
         if (senderId.equals(myId)) {
@@ -185,9 +301,12 @@ public class CMClientEventHandler implements CMAppEventHandler {
             case "edit":
                 m_clientApp.editLine(eventContent.getLineId(), eventContent.getContent(), eventContent.getClientId());
                 break;
-//            case "insert_char":
-//                m_clientApp.insertText(eventContent.getLineId(), eventContent.getContent(), eventContent.getPosition());
-//                break;
+            case "insert_text":
+                m_clientApp.insertText(eventContent.getLineId(), eventContent.getContent(), eventContent.getPosition());
+                break;
+            case "delete_text":
+                m_clientApp.deleteText(eventContent.getLineId(), eventContent.getPosition(), eventContent.getLength());
+                break;
             case "new_line_after":
                 m_clientApp.insertLineAfter(eventContent.getLineId(), "", eventContent.getClientId());
                 // lock 실패한 상태인데 lock이 풀렸다면 acquire 재요청
@@ -0,0 +1,152 @@
+package org.example;
+
+import editor.model.DocumentStorage;
+import kr.ac.konkuk.ccslab.cm.entity.CMUser;
+import kr.ac.konkuk.ccslab.cm.info.CMInteractionInfo;
+import kr.ac.konkuk.ccslab.cm.stub.CMServerStub;
+import lombok.Getter;
+
+import java.nio.file.Paths;
+
+/**
+ * 편집 서버 본체 (Swing 없음)
+ * CM 이벤트 처리, 방 목록, 문서 보관소를 가지고 화면에는 ServerObserver로 알리기만 함
+ * main은 화면 없이 실행 (운영용), 디버그 화면이 필요하면 CMServerApp으로 실행
+ */
+public class CMServer {
+    private final CMServerStub m_serverStub;
+    private final CMServerEventHandler m_eventHandler;
+
+    private final DocumentStorage storage;
+    @Getter
+    private final DocumentRegistry registry;
+    private volatile ServerObserver observer = ServerObserver.NONE;
+
+    public CMServer() {
+        storage = new DocumentStorage();
+        m_serverStub = new CMServerStub();
+        // session/group마다 독립된 문서 (서버는 방마다 여러 client의 서로 다른 라인 편집을 병렬로 처리)
+        registry = new DocumentRegistry(m_serverStub, storage, Paths.get("server-file-path", "wal"));
+        Runtime.getRuntime().addShutdownHook(new Thread(registry::closeAll));
+        m_eventHandler = new CMServerEventHandler(m_serverStub, this, storage);
+    }
+
+    public CMServerStub getServerStub() {
+        return m_serverStub;
+    }
+
+    public CMServerEventHandler getServerEventHandler() {
+        return m_eventHandler;
+    }
+
+    public void setObserver(ServerObserver observer) {
+        this.observer = observer == null ? ServerObserver.NONE : observer;
+    }
+
+    public void start() {
+        m_serverStub.setAppEventHandler(m_eventHandler);
+        m_serverStub.startCM();
+    }
+
+    // -Deditor.server.verbose=true 이면 처리 메시지를 표준 출력으로
+    public static void main(String[] args) {
+        CMServer server = new CMServer();
+        if (Boolean.getBoolean("editor.server.verbose")) {
+            server.setObserver(ServerObserver.CONSOLE);
+        }
+        server.start();
+    }
+
+    public void printMessage(String strText) {
+        observer.printMessage(strText);
+    }
+
+    public void documentChanged(DocumentRoom room) {
+        observer.documentChanged(room);
+    }
+
+    /**
+     * DELETE 병합 시 직접 모델 업데이트 (중복 처리 방지)
+     */
+    public void directMergeLines(DocumentRoom room, long currentLineId, long nextLineId, String mergedContent, String clientId) {
+        // 1. 현재 라인 내용 업데이트 + 다음 라인 삭제 (모델에서 한 번의 구조 변경으로 처리)
+        room.getController().mergeNextLine(currentLineId, nextLineId, mergedContent, clientId);
+
+        // 2. 서버 화면 갱신
+        documentChanged(room);
+    }
+
+    // Lock - Interface Functions
+    public boolean acquireServerLock(DocumentRoom room, long lineID, String clientID) {
+        return room.getController().acquireLock(lineID, clientID);
+    }
+
+    public boolean releaseServerLock(DocumentRoom room, long lineID, String clientID) {
+        return room.getController().releaseLock(lineID, clientID);
+    }
+
+    public long findLockLineIDByClientID(DocumentRoom room, String clientID) {
+        return room.getController().findLockLineIDByClientID(clientID);
+    }
+
+    public CMUser getMyself() {
+        CMInteractionInfo interactionInfo = m_serverStub.getCMInfo().getInteractionInfo();
+        return interactionInfo.getMyself();
+    }
+
+    public void insertText(DocumentRoom room, long lineID, String content, int position) {
+        room.getController().insertText(lineID, content, position);
+        documentChanged(room);
+    }
+
+    public void deleteText(DocumentRoom room, long lineID, int position, int length) {
+        room.getController().deleteText(lineID, position, position + length);
+        documentChanged(room);
+    }
+
+    public void editLine(DocumentRoom room, long lineID, String content, String clientID) {
+        room.getController().editLine(lineID, content, clientID);
+        documentChanged(room);
+    }
+
+    public void insertLineAfter(DocumentRoom room, long lineID, String content, String clientId) {
+        room.getController().insertLineAfter(lineID, content, clientId);
+        documentChanged(room);
+    }
+
+//    public void insertLineBefore(long lineID) {
+//        System.out.println("insertLineBefore");
+//        controller.insertLineBefore(lineID);
+//        renderRaw();
+//    }
+
+    public void splitLine(DocumentRoom room, long lineID, long splitIndex, String clientId) {
+        room.getController().splitLine(lineID, splitIndex, clientId);
+        documentChanged(room);
+    }
+
+    public void deleteLine(DocumentRoom room, long lineID, String clientId) {
+        room.getController().deleteLine(lineID, clientId);
+        documentChanged(room);
+    }
+
+    public boolean hasLock(DocumentRoom room, long lineId, String clientId){
+        long lockLineId = room.getController().findLockLineIDByClientID(clientId);
+        if(lockLineId == -1){
+            return false;
+        }
+        return lockLineId == lineId;
+    }
+
+    public long getTopLineId(DocumentRoom room) {
+        return room.getController().getTopLineId();
+    }
+
+    public void releaseServerLockAfterLogout(DocumentRoom room, String clientId) {
+        long lineId = room.getController().findLockLineIDByClientID(clientId);
+        if (releaseServerLock(room, lineId, clientId)) {
+            room.logLockMove(clientId, lineId, -1L);
+        }
+        documentChanged(room);
+    }
+}
@@ -1,34 +1,31 @@
 package org.example;
 
-import editor.controller.DocumentServerController;
-import editor.model.DocumentModel;
-import editor.model.DocumentStorage;
-import kr.ac.konkuk.ccslab.cm.entity.CMUser;
-import kr.ac.konkuk.ccslab.cm.info.CMInteractionInfo;
-import kr.ac.konkuk.ccslab.cm.stub.CMServerStub;
-import lombok.Getter;
-
 import javax.swing.*;
 import javax.swing.text.*;
 import java.awt.*;
-
-public class CMServerApp extends JFrame {
-    private CMServerStub m_serverStub;
-    private CMServerEventHandler m_eventHandler;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 서버 디버그 화면 (CMServer의 observer)
+ * 요청마다 바로 그리지 않고 메시지와 바뀐 방만 모아뒀다가 refreshMillis마다 EDT에서 한 번에 반영
+ * 메시지 창은 최근 MAX_LOG_CHARS 글자만 유지
+ */
+public class CMServerApp extends JFrame implements ServerObserver {
+    static final int REFRESH_MILLIS = Integer.getInteger("editor.view.refresh.ms", 250);
+    static final int MAX_LOG_CHARS = Integer.getInteger("editor.view.log.chars", 100_000);
+
+    private final CMServer server;
     private JTextPane m_outTextPane;
     private JTextArea rawArea;
     private JSplitPane splitPane;
 
-    @Getter
-    private final DocumentServerController controller;
+    // 아직 화면에 반영하지 않은 메시지
+    private final StringBuilder pendingMessages = new StringBuilder();
+    // 다시 그려야 하는 방 (마지막으로 바뀐 방 하나만 그림)
+    private final AtomicReference<DocumentRoom> pendingRender = new AtomicReference<>();
 
-    public CMServerApp() {
-        DocumentModel model = new DocumentModel();
-        DocumentStorage storge = new DocumentStorage();
-        controller = new DocumentServerController(model);
-
-        m_serverStub = new CMServerStub();
-        m_eventHandler = new CMServerEventHandler(m_serverStub, this, storge);
+    public CMServerApp(CMServer server) {
+        this.server = server;
 
         setTitle("Text Editor Server");
         setSize(800, 600);
@@ -59,22 +56,15 @@ public class CMServerApp extends JFrame {
         add(splitPane, BorderLayout.CENTER);
         setVisible(true);
 
-        renderRaw();
-    }
-
-    public CMServerStub getServerStub() {
-        return m_serverStub;
-    }
-
-    public CMServerEventHandler getServerEventHandler() {
-        return m_eventHandler;
+        new Timer(REFRESH_MILLIS, e -> refresh()).start();
+        server.setObserver(this);
+        documentChanged(server.getRegistry().room(null, null));
     }
 
     public static void main(String[] args) {
-        CMServerApp server = new CMServerApp();
-        CMServerStub cmStub = server.getServerStub();
-        cmStub.setAppEventHandler(server.getServerEventHandler());
-        cmStub.startCM();
+        CMServer server = new CMServer();
+        new CMServerApp(server);
+        server.start();
     }
 
     private void addStylesToDocument(StyledDocument doc) {
@@ -87,10 +77,42 @@ public class CMServerApp extends JFrame {
         StyleConstants.setBold(boldStyle, true);
     }
 
+    // 방 스레드에서 호출, 모아뒀다가 refresh에서 반영
+    @Override
     public void printMessage(String strText) {
+        synchronized (pendingMessages) {
+            pendingMessages.append(strText);
+        }
+    }
+
+    @Override
+    public void documentChanged(DocumentRoom room) {
+        pendingRender.set(room);
+    }
+
+    // EDT (Swing Timer)
+    private void refresh() {
+        String messages;
+        synchronized (pendingMessages) {
+            messages = pendingMessages.toString();
+            pendingMessages.setLength(0);
+        }
+        if (!messages.isEmpty()) {
+            appendMessage(messages);
+        }
+        DocumentRoom room = pendingRender.getAndSet(null);
+        if (room != null) {
+            renderRaw(room);
+        }
+    }
+
+    private void appendMessage(String strText) {
         StyledDocument doc = m_outTextPane.getStyledDocument();
         try {
             doc.insertString(doc.getLength(), strText, null);
+            if (doc.getLength() > MAX_LOG_CHARS) {
+                doc.remove(0, doc.getLength() - MAX_LOG_CHARS);
+            }
             m_outTextPane.setCaretPosition(m_outTextPane.getDocument().getLength());
 
         } catch (BadLocationException e) {
@@ -99,36 +121,11 @@ public class CMServerApp extends JFrame {
         }
     }
 
-    /**
-     * DELETE 병합 시 직접 모델 업데이트 (중복 처리 방지)
-     */
-    public void directMergeLines(long currentLineId, long nextLineId, String mergedContent, String clientId) {
-        // 1. 현재 라인 내용 직접 업데이트
-        controller.getDocumentModel().forceUpdateContent(currentLineId, mergedContent);
-
-        // 2. 다음 라인 직접 삭제
-        controller.getDocumentModel().deleteLineAt(nextLineId, clientId);
-
-        // 3. 서버 화면 갱신
-        renderRaw();
-    }
-
-    // Lock - Interface Functions
-    public boolean acquireServerLock(long lineID, String clientID) {
-        return this.controller.acquireLock(lineID, clientID);
-    }
-
-    public boolean releaseServerLock(long lineID, String clientID) {
-        return this.controller.releaseLock(lineID, clientID);
-    }
-
-    public long findLockLineIDByClientID(String clientID) {
-        return this.controller.findLockLineIDByClientID(clientID);
-    }
-
-    public void renderRaw() {
+    // 최신 스냅샷으로 방 문서 전체를 그림
+    private void renderRaw(DocumentRoom room) {
         StringBuilder sb = new StringBuilder();
-        controller.getAllLines().forEach(line -> sb
+        sb.append("[room: ").append(room.getKey()).append("]\n");
+        room.getController().getDocumentModel().snapshot().lines().forEach(line -> sb
                 .append(line.getLineID()).append(": ")
                 .append(line.getContent()).append(" [lock=")
                 .append(line.isLocked()).append(", id=")
@@ -136,68 +133,4 @@ public class CMServerApp extends JFrame {
         );
         rawArea.setText(sb.toString());
     }
-
-    public CMUser getMyself() {
-        CMInteractionInfo interactionInfo = m_serverStub.getCMInfo().getInteractionInfo();
-        return interactionInfo.getMyself();
-    }
-
-    public void insertText(long lineID, String content, int position) {
-        controller.insertText(lineID, content, position);
-        renderRaw();
-    }
-
-    public void editLine(long lineID, String content, String clientID) {
-        System.out.println("editLine");
-
-        controller.editLine(lineID, content, clientID);
-        renderRaw();
-    }
-
-    public void insertLineAfter(long lineID, String content, String clientId) {
-        System.out.println("insertLineAfter");
-        controller.insertLineAfter(lineID, content, clientId);
-        renderRaw();
-    }
-
-//    public void insertLineBefore(long lineID) {
-//        System.out.println("insertLineBefore");
-//        controller.insertLineBefore(lineID);
-//        renderRaw();
-//    }
-
-    public void splitLine(long lineID, long splitIndex, String clientId) {
-        System.out.println("splitLine");
-        controller.splitLine(lineID, splitIndex, clientId);
-        renderRaw();
-    }
-
-    public void deleteLine(long lineID, String clientId) {
-        System.out.println("deleteLine");
-        controller.deleteLine(lineID, clientId);
-        renderRaw();
-    }
-
-    public boolean hasLock(long lineId, String clientId){
-        System.out.println("hasLock");
-        long lockLineId = controller.findLockLineIDByClientID(clientId);
-        if(lockLineId == -1){
-            return false;
-        }
-        return lockLineId == lineId;
-    }
-
-    public String getSerializedContents() {
-        return controller.getSerializedContents();
-    }
-
-    public long getTopLineId() {
-        return controller.getTopLineId();
-    }
-
-    public void releaseServerLockAfterLogout(String clientId) {
-        long lineId = controller.findLockLineIDByClientID(clientId);
-        releaseServerLock(lineId, clientId);
-        renderRaw();
-    }
 }
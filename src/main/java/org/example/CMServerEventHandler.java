@@ -2,30 +2,49 @@ package org.example;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import editor.model.DocumentModel;
+import editor.model.DocumentSnapshot;
 import editor.model.DocumentStorage;
+import editor.model.TextLine;
 import kr.ac.konkuk.ccslab.cm.entity.CMUser;
 import kr.ac.konkuk.ccslab.cm.event.*;
 import kr.ac.konkuk.ccslab.cm.event.handler.CMAppEventHandler;
 import kr.ac.konkuk.ccslab.cm.info.CMInfo;
 import kr.ac.konkuk.ccslab.cm.stub.CMServerStub;
 import org.example.dto.EventContent;
+import org.example.util.SnapshotStream;
+import org.example.util.WireCodec;
+import org.example.util.WireCodecs;
 
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 public class CMServerEventHandler implements CMAppEventHandler {
     private CMServerStub m_serverStub;
 
-    private CMServerApp m_serverApp;
+    private CMServer m_server;
 
     private DocumentStorage m_storage;
 
-    public CMServerEventHandler(CMServerStub serverStub, CMServerApp serverApp, DocumentStorage storage) {
+    // 방 스레드가 넘긴 이벤트의 인코딩 → 전송 단계
+    private final OutboundPipeline m_pipeline = new OutboundPipeline();
+
+    // 편집 연산 broadcast를 tick 단위로 묶어서 전송
+    private final BroadcastAggregator m_broadcaster;
+
+    public CMServerEventHandler(CMServerStub serverStub, CMServer server, DocumentStorage storage) {
         m_serverStub = serverStub;
-        m_serverApp = serverApp;
+        m_server = server;
         m_storage = storage;
+        m_broadcaster = new BroadcastAggregator(this::sendOpFrame, room -> m_server.getRegistry().codecFor(room),
+                m_pipeline, this::takePeakRoomQueueDepth);
+    }
+
+    private int takePeakRoomQueueDepth() {
+        return m_server.getRegistry().rooms().stream().mapToInt(DocumentRoom::takePeakQueueDepth).max().orElse(0);
     }
 
     @Override
@@ -41,7 +60,6 @@ public class CMServerEventHandler implements CMAppEventHandler {
                 break;
 
             case CMInfo.CM_USER_EVENT:
-                System.out.println("[EVENT HANDLER] CM_USER_EVENT received");
                 processUserEvent(cme);
                 break;
 
@@ -52,54 +70,104 @@ public class CMServerEventHandler implements CMAppEventHandler {
 
     public void processUserEvent(CMEvent cme) {
         CMUserEvent event = (CMUserEvent) cme;
+        // 보낸 client가 속한 session/group의 문서로 처리 (방 스레드에서 들어온 순서대로)
+        DocumentRoom room = m_server.getRegistry().roomOf(event.getSender());
+        if ("LOCK_MOVE_REQUEST".equals(event.getStringID())) {
+            // 같은 client가 더 새 lock 요청을 보내면 아직 큐에 있는 이전 요청은 건너뜀
+            String clientID = event.getEventField(CMInfo.CM_STR, "client_id");
+            long ticket = room.offerLockRequest(clientID);
+            if (!room.offer(() -> {
+                if (room.isLatestLockRequest(clientID, ticket)) {
+                    handleUserEvent(room, event);
+                } else {
+                    m_server.printMessage("[" + clientID + "] LOCK_MOVE_REQUEST superseded\n");
+                }
+            })) {
+                rejectBusy(room, event);
+            }
+            return;
+        }
+        if (!room.offer(() -> handleUserEvent(room, event))) {
+            rejectBusy(room, event);
+        }
+    }
+
+    // 방 입력 큐가 가득 참 : 요청을 버리고 보낸 client에게만 알림 (client는 잠시 뒤 문서 전체를 다시 받아 맞춤)
+    // CM 이벤트 스레드가 다른 방을 계속 처리할 수 있도록 기다리지 않음
+    private void rejectBusy(DocumentRoom room, CMUserEvent event) {
+        m_server.printMessage("[" + event.getSender() + "] " + event.getStringID() + " dropped, room " + room.getKey() + " is busy\n");
+        CMUserEvent busy = new CMUserEvent();
+        busy.setStringID("ROOM_BUSY");
+        busy.setEventField(CMInfo.CM_STR, "request", event.getStringID());
+        m_serverStub.send(busy, event.getSender());
+    }
+
+    private void handleUserEvent(DocumentRoom room, CMUserEvent event) {
+        dispatchUserEvent(room, event);
+        // 로그 쓰기가 실패했으면 편집은 계속 받되 화면/콘솔에 한 번 알림
+        String logFailure = room.takeLogFailure();
+        if (logFailure != null) {
+            m_server.printMessage(logFailure + "\n");
+        }
+    }
 
+    private void dispatchUserEvent(DocumentRoom room, CMUserEvent event) {
         long lineId;
         switch (event.getStringID()) {
             // todo 클라로부터 온 이벤트를 처리하고 다른 클라에게 브로드캐스트
             case "NEW_LINE_AFTER_REQUEST":
-                handleNewLineAfterRequest(event);
+                handleNewLineAfterRequest(room, event);
                 break;
             case "NEW_SPLIT_LINE_REQUEST":
-                handleNewSplitLineRequest(event);
+                handleNewSplitLineRequest(room, event);
                 break;
             case "ON_EDIT_REQUEST":
-                handleOnEditRequest(event);
+                handleOnEditRequest(room, event);
+                break;
+            case "INSERT_TEXT_REQUEST":
+                handleInsertTextRequest(room, event);
+                break;
+            case "DELETE_TEXT_REQUEST":
+                handleDeleteTextRequest(room, event);
+                break;
+            case "EDIT_BATCH_REQUEST":
+                handleEditBatchRequest(room, event);
+                break;
+            case "CODEC_HELLO":
+                handleCodecHello(room, event);
+                break;
+            case "RESYNC_REQUEST":
+                handleResyncRequest(room, event);
                 break;
             case "DELETE_LINE_REQUEST":
-                handleDeleteLineRequest(event);
+                handleDeleteLineRequest(room, event);
                 break;
             case "MERGE_NEXT_LINE_REQUEST":
-                handleMergeNextLineRequest(event);
+                handleMergeNextLineRequest(room, event);
                 break;
             case "LOCK_MOVE_REQUEST": {
-                System.out.println("[EVENT HANDLER] LOCK_MOVE_REQUEST received");
-
                 String clientID = event.getEventField(CMInfo.CM_STR, "client_id");
                 long lineID = Long.parseLong(event.getEventField(CMInfo.CM_LONG, "line_id"));
                 long oldLineID = -1L;
 
-                m_serverApp.printMessage("[" + clientID + "] requested to move a lock at line " + lineID + "\n");
-                System.out.println("clientID: " + clientID + ", lineID: " + lineID + ", oldLineID: " + oldLineID);
+                m_server.printMessage("[" + clientID + "] requested to move a lock at line " + lineID + "\n");
 
                 // lineID == -1 -> release만 요청
                 if (clientID.equals("")) {
-                    System.out.println("[ERROR] client id is invalid");
+                    m_server.printMessage("[ERROR] client id is invalid\n");
                 }
 
                 // 1. lock 가지고 있는지 체크
-                oldLineID = this.m_serverApp.findLockLineIDByClientID(clientID);
-                System.out.println("oldLineID: " + oldLineID);
+                oldLineID = this.m_server.findLockLineIDByClientID(room, clientID);
 
                 // 2. Lock release
                 if (oldLineID >= 0L) {
-                    boolean releaseResult = this.m_serverApp.releaseServerLock(oldLineID, clientID);
+                    boolean releaseResult = this.m_server.releaseServerLock(room, oldLineID, clientID);
 
                     if (releaseResult) {
-                        m_serverApp.printMessage("[" + clientID + "] released a lock at line " + oldLineID + "\n");
-                        System.out.println("[LOG] lock released successfully at line " + oldLineID);
+                        m_server.printMessage("[" + clientID + "] released a lock at line " + oldLineID + "\n");
                     } else {
-                        m_serverApp.printMessage("[" + clientID + "] failed to release a lock at line " + oldLineID + "\n");
-                        System.out.println("[LOG] failed to release lock at line " + oldLineID);
+                        m_server.printMessage("[" + clientID + "] failed to release a lock at line " + oldLineID + "\n");
                         // 처리 실패
                         break;
                     }
@@ -109,36 +177,33 @@ public class CMServerEventHandler implements CMAppEventHandler {
                 boolean acquireResult = true;
 
                 if (lineID >= 0L) {
-                    acquireResult = this.m_serverApp.acquireServerLock(lineID, clientID);
+                    acquireResult = this.m_server.acquireServerLock(room, lineID, clientID);
 
                     if (acquireResult) {
-                        m_serverApp.printMessage("[" + clientID + "] acquired a lock at line " + lineID + "\n");
-                        System.out.println("[LOG] lock acquired successfully at line " + lineID);
+                        m_server.printMessage("[" + clientID + "] acquired a lock at line " + lineID + "\n");
                     } else {
-                        m_serverApp.printMessage("[" + clientID + "] failed to acquire a lock at line " + lineID + "\n");
-                        System.out.println("[LOG] failed to acquire a lock at line " + lineID);
+                        m_server.printMessage("[" + clientID + "] failed to acquire a lock at line " + lineID + "\n");
                     }
                 }
 
+                // 로그에는 실제로 바뀐 lock 상태만 기록
+                if (oldLineID >= 0L || (acquireResult && lineID >= 0L)) {
+                    room.logLockMove(clientID, oldLineID, acquireResult ? lineID : -1L);
+                }
+
                 // 4. 결과 반환
                 // 4.1 lock 얻음
                 if (acquireResult) {
                     // oldLineID == -1인 경우 갖고 있던 lock이 없어 새 lock만 획득
                     // oldLineID >= 0인 경우 release 후 lock 획득
-                    if (broadcastLockResponse(event, clientID, oldLineID, lineID)) {
-                        // lineID == -1 이면 release만 요청
-                        if (lineID == -1L && oldLineID >= 0L) {
-                            m_serverApp.printMessage("[" + clientID + "] released a lock at " + oldLineID + "\n");
-                            System.out.println("[LOG] lock released successfully at line " + oldLineID);
-                        }
-                        // 이외
-                        else {
-                            m_serverApp.printMessage("[" + clientID + "] lock moved from " + oldLineID + " to " + lineID + " - broadcast success\n");
-                            System.out.println("[SUCCESS - LOCK_MOVE_RESPONSE]  lock moved from " + oldLineID + " to " + lineID);
-                        }
-                    } else {
-                        m_serverApp.printMessage("[" + clientID + "] lock moved from " + oldLineID + " to " + lineID + " - broadcast fail\n");
-                        System.out.println("[FAILED - LOCK_MOVE_RESPONSE] lock moved from " + oldLineID + " to " + lineID);
+                    broadcastLockResponse(room, event, clientID, oldLineID, lineID);
+                    // lineID == -1 이면 release만 요청
+                    if (lineID == -1L && oldLineID >= 0L) {
+                        m_server.printMessage("[" + clientID + "] released a lock at " + oldLineID + "\n");
+                    }
+                    // 이외
+                    else {
+                        m_server.printMessage("[" + clientID + "] lock moved from " + oldLineID + " to " + lineID + "\n");
                     }
                 }
                 // 4.2 lock 얻기 실패
@@ -146,19 +211,12 @@ public class CMServerEventHandler implements CMAppEventHandler {
                     // 4.2.1 release 한 경우 알려줘야 함
                     if (oldLineID >= 0L) {
                         // oldLineID release 성공, 새로 얻은 lock 없음 (-1)
-                        if (broadcastLockResponse(event, clientID, oldLineID, -1L)) {
-                            m_serverApp.printMessage("[" + clientID + "] release lock at " + oldLineID + " and failed to get lock at " + lineID + " broadcast success\n");
-                            System.out.println("[SUCCESS - LOCK_MOVE_RESPONSE]  lock released " + oldLineID + " but failed to acquire at " + lineID);
-                        } else {
-                            m_serverApp.printMessage("[" + clientID + "] release lock at " + oldLineID + " and failed to get lock at " + lineID + " broadcast fail\n");
-                            System.out.println("[FAILED - LOCK_MOVE_RESPONSE]  lock released " + oldLineID + " but failed to acquire at " + lineID);
-                        }
-                    } else {
-                        System.out.println("release failed, acquire failed");
+                        broadcastLockResponse(room, event, clientID, oldLineID, -1L);
+                        m_server.printMessage("[" + clientID + "] release lock at " + oldLineID + " and failed to get lock at " + lineID + "\n");
                     }
                 }
 
-                m_serverApp.renderRaw();
+                m_server.documentChanged(room);
                 break;
             }
             case "REQUEST_SAVE_DOCUMENT": {
@@ -166,16 +224,16 @@ public class CMServerEventHandler implements CMAppEventHandler {
                 String title = event.getEventField(CMInfo.CM_STR, "title");
                 System.out.println("[SERVER] Saving document: id=" + docId + ", title=" + title);
                 
-                // 현재 controller의 model을 복사해서 저장
-                DocumentModel modelCopy = m_serverApp.getController().getDocumentModel().copy();
-                m_storage.saveDocument(docId, title, modelCopy);
+                // 요청한 client 방의 model 스냅샷을 저장 (O(1), 이후 편집과 구조 공유)
+                DocumentSnapshot snapshot = room.getController().getDocumentModel().snapshot();
+                m_storage.saveDocument(docId, title, snapshot);
                 System.out.println("[SERVER] Document saved successfully");
                 
                 // 저장 후 모든 클라이언트에게 문서 목록 브로드캐스트
                 List<DocumentStorage.DocumentMeta> list = m_storage.listDocuments();
                 System.out.println("[SERVER] Current document list size: " + list.size());
                 
-                ObjectMapper om = new ObjectMapper();
+                ObjectMapper om = WireCodecs.objectMapper();
                 String docsJson = "";
                 try {
                     docsJson = om.writeValueAsString(list);
@@ -188,8 +246,7 @@ public class CMServerEventHandler implements CMAppEventHandler {
                 CMUserEvent resp = new CMUserEvent();
                 resp.setStringID("RESPONSE_LIST_DOCUMENTS");
                 resp.setEventField(CMInfo.CM_STR, "documents", docsJson);
-                boolean broadcastResult = m_serverStub.broadcast(resp);
-                System.out.println("[SERVER] Document list broadcast result: " + broadcastResult);
+                m_pipeline.submit(room, () -> resp, e -> System.out.println("[SERVER] Document list broadcast result: " + m_serverStub.broadcast(e)));
                 break;
             }
             case "REQUEST_LIST_DOCUMENTS": {
@@ -198,7 +255,7 @@ public class CMServerEventHandler implements CMAppEventHandler {
                 List<DocumentStorage.DocumentMeta> list = m_storage.listDocuments();
                 System.out.println("[SERVER] Sending document list with size: " + list.size());
                 
-                ObjectMapper om = new ObjectMapper();
+                ObjectMapper om = WireCodecs.objectMapper();
                 String docsJson = "";
                 try {
                     docsJson = om.writeValueAsString(list);
@@ -211,39 +268,42 @@ public class CMServerEventHandler implements CMAppEventHandler {
                 CMUserEvent resp = new CMUserEvent();
                 resp.setStringID("RESPONSE_LIST_DOCUMENTS");
                 resp.setEventField(CMInfo.CM_STR, "documents", docsJson);
-                boolean sendResult = m_serverStub.send(resp, event.getHandlerSession());
-                System.out.println("[SERVER] Document list send result: " + sendResult);
+                String receiver = event.getHandlerSession();
+                m_pipeline.submit(room, () -> resp, e -> System.out.println("[SERVER] Document list send result: " + m_serverStub.send(e, receiver)));
                 break;
             }
             case "REQUEST_LOAD_DOCUMENT": {
                 String docId = event.getEventField(CMInfo.CM_STR, "docId");
-                DocumentModel model = m_storage.loadDocument(docId);
-                // 현재 작업 문서 교체
-                m_serverApp.getController().setDocumentModel(model.copy());
-                m_serverApp.getController().resetAllLockInfo();
-                // 전체 내용 클라이언트에 브로드캐스트(기존 PUSH_DOCUMENT_MODEL)
-                broadcastCurrentContents();
+                DocumentSnapshot snapshot = m_storage.loadDocument(docId);
+                if (snapshot == null) {
+                    System.out.println("[SERVER] Unknown document id: " + docId);
+                    break;
+                }
+                // 요청한 client 방의 작업 문서만 교체 (다른 방은 영향 없음)
+                room.loadDocument(docId, snapshot);
+                // 전체 내용 방의 클라이언트에 브로드캐스트(기존 PUSH_DOCUMENT_MODEL)
+                broadcastCurrentContents(room);
                 break;
             }
         }
     }
 
-    private void handleMergeNextLineRequest(CMUserEvent event) {
+    private void handleMergeNextLineRequest(DocumentRoom room, CMUserEvent event) {
         String clientId = event.getEventField(CMInfo.CM_STR, "clientId");
         long currentLineId = Long.parseLong(event.getEventField(CMInfo.CM_LONG, "currentLineId"));
         long nextLineId = Long.parseLong(event.getEventField(CMInfo.CM_LONG, "nextLineId"));
         String mergedContent = event.getEventField(CMInfo.CM_STR, "mergedContent");
 
-        m_serverApp.printMessage("[" + clientId + "] MERGE_NEXT_LINE_REQUEST received\n");
+        m_server.printMessage("[" + clientId + "] MERGE_NEXT_LINE_REQUEST received\n");
 
         // 현재 라인에 대한 락이 있는지 확인
-        if (!m_serverApp.hasLock(currentLineId, clientId)) {
-            System.out.println("Client " + clientId + " does not have lock on line " + currentLineId);
+        if (!m_server.hasLock(room, currentLineId, clientId)) {
+            m_server.printMessage("[" + clientId + "] does not have lock on line " + currentLineId + "\n");
             return;
         }
 
         // 서버에서 직접 모델 업데이트 (중복 처리 방지)
-        m_serverApp.directMergeLines(currentLineId, nextLineId, mergedContent, clientId);
+        m_server.directMergeLines(room, currentLineId, nextLineId, mergedContent, clientId);
 
         // 병합 이벤트를 다른 클라이언트들에게 브로드캐스트
         EventContent eventContent = EventContent.builder()
@@ -255,18 +315,19 @@ public class CMServerEventHandler implements CMAppEventHandler {
                 .timestamp(LocalDateTime.now())
                 .build();
 
-        broadcastEvent(eventContent);
+        room.logOp(eventContent);
+        broadcastEvent(room, eventContent);
     }
 
-    private void handleDeleteLineRequest(CMUserEvent event) {
+    private void handleDeleteLineRequest(DocumentRoom room, CMUserEvent event) {
         String clientId = event.getEventField(CMInfo.CM_STR, "clientId");
         long lineId = Long.parseLong(event.getEventField(CMInfo.CM_LONG, "lineId"));
 
-        m_serverApp.printMessage("[" + clientId + "] DELETE_LINE_REQUEST received\n");
+        m_server.printMessage("[" + clientId + "] DELETE_LINE_REQUEST received\n");
 
-        if(!m_serverApp.hasLock(lineId, clientId)) return;
+        if(!m_server.hasLock(room, lineId, clientId)) return;
 
-        m_serverApp.deleteLine(lineId, clientId);
+        m_server.deleteLine(room, lineId, clientId);
 
         EventContent eventContent = EventContent.builder()
                 .type("delete_line")
@@ -275,21 +336,22 @@ public class CMServerEventHandler implements CMAppEventHandler {
                 .timestamp(LocalDateTime.now())
                 .build();
 
-        broadcastEvent(eventContent);
+        room.logOp(eventContent);
+        broadcastEvent(room, eventContent);
     }
 
-    private void handleOnEditRequest(CMUserEvent event) {
+    private void handleOnEditRequest(DocumentRoom room, CMUserEvent event) {
         String clientId = event.getEventField(CMInfo.CM_STR, "clientId");
         String content = event.getEventField(CMInfo.CM_STR, "content");
         long lineId = Long.parseLong(event.getEventField(CMInfo.CM_LONG, "lineId"));
 
-        m_serverApp.printMessage("[" + clientId + "] ON_EDIT_REQUEST received\n");
+        m_server.printMessage("[" + clientId + "] ON_EDIT_REQUEST received\n");
 
         // 락이 없으면 요청을 무시
-        if(!m_serverApp.hasLock(lineId, clientId)) return;
+        if(!m_server.hasLock(room, lineId, clientId)) return;
 
         // 처리 후에 브로드캐스트
-        m_serverApp.editLine(lineId, content, clientId);
+        m_server.editLine(room, lineId, content, clientId);
 
         EventContent eventContent = EventContent.builder()
                 .type("edit")
@@ -298,17 +360,143 @@ public class CMServerEventHandler implements CMAppEventHandler {
                 .clientId(clientId)
                 .timestamp(LocalDateTime.now())
                 .build();
-        broadcastEvent(eventContent);
+        room.logOp(eventContent);
+        broadcastEvent(room, eventContent);
+    }
+
+    // 글자 단위 삽입: 바뀐 글자만 주고받음
+    private void handleInsertTextRequest(DocumentRoom room, CMUserEvent event) {
+        String clientId = event.getEventField(CMInfo.CM_STR, "clientId");
+        String content = event.getEventField(CMInfo.CM_STR, "content");
+        long lineId = Long.parseLong(event.getEventField(CMInfo.CM_LONG, "lineId"));
+        int position = Integer.parseInt(event.getEventField(CMInfo.CM_INT, "position"));
+
+        applyInsertText(room, clientId, lineId, position, content);
+    }
+
+    // 글자 단위 삭제: [position, position + length)
+    private void handleDeleteTextRequest(DocumentRoom room, CMUserEvent event) {
+        String clientId = event.getEventField(CMInfo.CM_STR, "clientId");
+        long lineId = Long.parseLong(event.getEventField(CMInfo.CM_LONG, "lineId"));
+        int position = Integer.parseInt(event.getEventField(CMInfo.CM_INT, "position"));
+        int length = Integer.parseInt(event.getEventField(CMInfo.CM_INT, "length"));
+
+        applyDeleteText(room, clientId, lineId, position, length);
+    }
+
+    // client 버퍼에서 합쳐진 글자 단위 연산 여러 개를 순서대로 처리
+    private void handleEditBatchRequest(DocumentRoom room, CMUserEvent event) {
+        String clientId = event.getEventField(CMInfo.CM_STR, "clientId");
+        String frame = event.getEventField(CMInfo.CM_STR, "ops");
+        List<EventContent> ops;
+        try {
+            ops = WireCodecs.detect(frame).decodeOps(frame);
+        } catch (RuntimeException e) {
+            //noinspection CallToPrintStackTrace
+            e.printStackTrace();
+            return;
+        }
+
+        m_server.printMessage("[" + clientId + "] EDIT_BATCH_REQUEST received (" + ops.size() + " ops)\n");
+        for (EventContent op : ops) {
+            if ("insert_text".equals(op.getType())) {
+                applyInsertText(room, clientId, op.getLineId(), op.getPosition(), op.getContent());
+            } else if ("delete_text".equals(op.getType())) {
+                applyDeleteText(room, clientId, op.getLineId(), op.getPosition(), op.getLength());
+            }
+        }
+    }
+
+    // 로그인 후 client가 지원하는 codec 목록을 알려주면 하나를 골라 응답
+    private void handleCodecHello(DocumentRoom room, CMUserEvent event) {
+        String clientId = event.getSender();
+        WireCodec codec = WireCodecs.negotiate(event.getEventField(CMInfo.CM_STR, "codecs"));
+        m_server.getRegistry().setCodec(clientId, codec);
+        m_server.printMessage("[" + clientId + "] uses " + codec.name() + " codec\n");
+
+        CMUserEvent ackEvent = new CMUserEvent();
+        ackEvent.setStringID("CODEC_ACK");
+        ackEvent.setEventField(CMInfo.CM_STR, "codec", codec.name());
+        sendToUser(room, ackEvent, clientId);
+    }
+
+    /**
+     * client가 revision 누락을 감지하면 빠진 연산부터 다시 요청함
+     * history에 남아 있으면 그 연산들만 보내고, 범위를 벗어났으면 전체 문서를 보냄
+     */
+    private void handleResyncRequest(DocumentRoom room, CMUserEvent event) {
+        String clientId = event.getSender();
+        long fromRevision = Long.parseLong(event.getEventField(CMInfo.CM_LONG, "fromRevision"));
+        m_broadcaster.flush(room);
+
+        List<EventContent> ops = room.opsSince(fromRevision);
+        if (ops == null) {
+            m_server.printMessage("[" + clientId + "] resync from " + fromRevision + " outside history, sending snapshot\n");
+            sendCurrentContents(room, clientId);
+            return;
+        }
+        m_server.printMessage("[" + clientId + "] resync from " + fromRevision + " (" + ops.size() + " ops)\n");
+        if (ops.isEmpty()) return;
+
+        WireCodec codec = m_server.getRegistry().codecOf(clientId);
+        m_pipeline.submit(room, () -> {
+            CMDummyEvent de = new CMDummyEvent();
+            de.setDummyInfo(codec.encodeOps(ops));
+            return de;
+        }, de -> m_serverStub.send(de, clientId));
+    }
+
+    private void applyInsertText(DocumentRoom room, String clientId, long lineId, int position, String content) {
+        // 락이 없거나 위치가 라인 범위를 벗어나면 요청을 무시
+        if (!m_server.hasLock(room, lineId, clientId)) return;
+        if (content == null || !isRangeValid(room, lineId, position, 0)) return;
+
+        m_server.insertText(room, lineId, content, position);
+
+        EventContent eventContent = EventContent.builder()
+                .type("insert_text")
+                .lineId(lineId)
+                .position(position)
+                .content(content)
+                .clientId(clientId)
+                .timestamp(LocalDateTime.now())
+                .build();
+        room.logOp(eventContent);
+        broadcastEvent(room, eventContent);
+    }
+
+    private void applyDeleteText(DocumentRoom room, String clientId, long lineId, int position, int length) {
+        if (!m_server.hasLock(room, lineId, clientId)) return;
+        if (length <= 0 || !isRangeValid(room, lineId, position, length)) return;
+
+        m_server.deleteText(room, lineId, position, length);
+
+        EventContent eventContent = EventContent.builder()
+                .type("delete_text")
+                .lineId(lineId)
+                .position(position)
+                .length(length)
+                .clientId(clientId)
+                .timestamp(LocalDateTime.now())
+                .build();
+        room.logOp(eventContent);
+        broadcastEvent(room, eventContent);
+    }
+
+    private boolean isRangeValid(DocumentRoom room, long lineId, int position, int length) {
+        return room.getController().getTextLineByLineId(lineId)
+                .map(line -> position >= 0 && position + length <= line.length())
+                .orElse(false);
     }
 
-    private void handleNewLineAfterRequest(CMUserEvent event) {
+    private void handleNewLineAfterRequest(DocumentRoom room, CMUserEvent event) {
         String clientId = event.getEventField(CMInfo.CM_STR, "clientId");
 
-        m_serverApp.printMessage("[" + clientId + "] NEW_LINE_AFTER_REQUEST received\n");
+        m_server.printMessage("[" + clientId + "] NEW_LINE_AFTER_REQUEST received\n");
 
         long lineId = Long.parseLong(event.getEventField(CMInfo.CM_LONG, "lineId"));
 
-        m_serverApp.insertLineAfter(lineId, "", clientId);
+        m_server.insertLineAfter(room, lineId, "", clientId);
 
         EventContent eventContent = EventContent.builder()
                 .type("new_line_after")
@@ -317,18 +505,19 @@ public class CMServerEventHandler implements CMAppEventHandler {
                 .timestamp(LocalDateTime.now())
                 .build();
 
-        broadcastEvent(eventContent);
+        room.logOp(eventContent);
+        broadcastEvent(room, eventContent);
     }
 
-    private void handleNewSplitLineRequest(CMUserEvent event) {
+    private void handleNewSplitLineRequest(DocumentRoom room, CMUserEvent event) {
         String clientId = event.getEventField(CMInfo.CM_STR, "clientId");
 
-        m_serverApp.printMessage("[" + clientId + "] NEW_SPLIT_LINE_REQUEST received\n");
+        m_server.printMessage("[" + clientId + "] NEW_SPLIT_LINE_REQUEST received\n");
 
         long lineId = Long.parseLong(event.getEventField(CMInfo.CM_LONG, "lineId"));
         long splitIndex = Long.parseLong(event.getEventField(CMInfo.CM_LONG, "splitIndex"));
 
-        m_serverApp.splitLine(lineId, splitIndex, clientId);
+        m_server.splitLine(room, lineId, splitIndex, clientId);
 
         EventContent eventContent = EventContent.builder()
                 .type("new_line_split")
@@ -338,31 +527,28 @@ public class CMServerEventHandler implements CMAppEventHandler {
                 .timestamp(LocalDateTime.now())
                 .build();
 
-        broadcastEvent(eventContent);
+        room.logOp(eventContent);
+        broadcastEvent(room, eventContent);
     }
 
-    private void broadcastEvent(EventContent eventContent) {
-        CMUser myself = m_serverStub.getMyself();
-
-        ObjectMapper objectMapper = new ObjectMapper();
-        String dummyEventContent = "";
-        try {
-            dummyEventContent = objectMapper.writeValueAsString(eventContent);
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException(e);
-        }
+    private void broadcastEvent(DocumentRoom room, EventContent eventContent) {
+        room.stamp(eventContent);
+        m_broadcaster.submit(room, eventContent);
+    }
 
-        System.out.println("broadcast message" + dummyEventContent + " from " + myself.getName());
+    // aggregator가 모은 연산 프레임 전송 (EventContent 하나 또는 배열)
+    private void sendOpFrame(DocumentRoom room, String frame) {
+        CMUser myself = m_serverStub.getMyself();
 
         CMDummyEvent de = new CMDummyEvent();
         de.setHandlerSession(myself.getCurrentSession());
         de.setHandlerGroup(myself.getCurrentGroup());
-        de.setDummyInfo(dummyEventContent);
-        m_serverStub.broadcast(de);
+        de.setDummyInfo(frame);
+        castToRoom(room, de);
     }
 
     // lock 결과 broadcast (송신자 포함)
-    private boolean broadcastLockResponse(CMUserEvent receivedEvent, String clientID, long oldLineID, long lineID) {
+    private void broadcastLockResponse(DocumentRoom room, CMUserEvent receivedEvent, String clientID, long oldLineID, long lineID) {
         CMUserEvent responseEvent = new CMUserEvent();
         responseEvent.setStringID("LOCK_MOVE_RESPONSE");
         responseEvent.setHandlerSession(receivedEvent.getHandlerSession());
@@ -371,69 +557,164 @@ public class CMServerEventHandler implements CMAppEventHandler {
         responseEvent.setEventField(CMInfo.CM_LONG, "old_line_id", String.valueOf(oldLineID));
         responseEvent.setEventField(CMInfo.CM_LONG, "line_id", String.valueOf(lineID));
 
-        return m_serverStub.broadcast(responseEvent);
+        sendToRoom(room, responseEvent);
+    }
+
+    // 방에 속한 client에게만 전송, 아직 안 보낸 연산 프레임이 있으면 먼저 보냄 (전송은 출력 파이프라인에서)
+    private void sendToRoom(DocumentRoom room, CMEvent event) {
+        m_broadcaster.flush(room);
+        m_pipeline.submit(room, () -> event, e -> castToRoom(room, e));
+    }
+
+    // 방의 client 한 명에게 전송, 순서는 sendToRoom과 같이 유지
+    private void sendToUser(DocumentRoom room, CMEvent event, String userName) {
+        m_broadcaster.flush(room);
+        m_pipeline.submit(room, () -> event, e -> {
+            if (!m_serverStub.send(e, userName)) {
+                System.out.println("[FAILED] send to " + userName);
+            }
+        });
+    }
+
+    // session에 들어가지 않은 기본 방은 전체 broadcast
+    private boolean castToRoom(DocumentRoom room, CMEvent event) {
+        boolean result = room.isDefault()
+                ? m_serverStub.broadcast(event)
+                : m_serverStub.cast(event, room.getSession(), room.getGroup());
+        if (!result) {
+            System.out.println("[FAILED] send to room " + room.getKey());
+        }
+        return result;
     }
 
     private void processSessionEvent(CMEvent cme) {
         CMSessionEvent se = (CMSessionEvent) cme;
         switch (se.getID()) {
-            case CMSessionEvent.LOGIN:
-                m_serverApp.printMessage("[" + se.getUserName() + "] requests login\n");
-                broadcastCurrentContents();
+            case CMSessionEvent.LOGIN: {
+                m_server.printMessage("[" + se.getUserName() + "] requests login\n");
+                DocumentRoom room = m_server.getRegistry().roomOf(se.getUserName());
+                room.execute(() -> sendCurrentContents(room, se.getUserName()));
                 break;
-            case CMSessionEvent.LOGOUT:
-                m_serverApp.printMessage("[" + se.getUserName() + "] logs out\n");
+            }
+            case CMSessionEvent.JOIN_SESSION: {
+                // session에 들어오면 그 방의 문서를 받아야 함
+                DocumentRoom room = m_server.getRegistry().roomOf(se.getUserName());
+                m_server.printMessage("[" + se.getUserName() + "] joins room " + room.getKey() + "\n");
+                room.execute(() -> sendCurrentContents(room, se.getUserName()));
+                break;
+            }
+            case CMSessionEvent.LOGOUT: {
+                m_server.printMessage("[" + se.getUserName() + "] logs out\n");
+                DocumentRoom left = m_server.getRegistry().leave(se.getUserName());
+                DocumentRoom room = left != null ? left : m_server.getRegistry().roomOf(se.getUserName());
                 // todo 로그아웃 시 락을 풀고 브로드캐스트
-                m_serverApp.releaseServerLockAfterLogout(se.getUserName());
-                broadcastLogoutLockResponse(se);
+                room.execute(() -> {
+                    m_server.releaseServerLockAfterLogout(room, se.getUserName());
+                    room.forgetLockRequests(se.getUserName());
+                    broadcastLogoutLockResponse(room, se);
+                });
+            }
             default:
                 return;
         }
     }
 
-    private void broadcastLogoutLockResponse(CMSessionEvent receivedEvent) {
+    private void broadcastLogoutLockResponse(DocumentRoom room, CMSessionEvent receivedEvent) {
         CMUserEvent responseEvent = new CMUserEvent();
         responseEvent.setStringID("RELEASE_LOGOUT_USER_LOCK");
         responseEvent.setHandlerSession(receivedEvent.getHandlerSession());
         responseEvent.setHandlerGroup(receivedEvent.getHandlerGroup());
         responseEvent.setEventField(CMInfo.CM_STR, "clientId", receivedEvent.getUserName());
 
-        if (m_serverStub.broadcast(responseEvent)){
-            System.out.println("문서 내용 브로드캐스트 완료");
-            m_serverApp.printMessage("LOGOUT_USER_LOCK_RELEASE succeeded!!\n");
-        }
-        else {
-            System.out.println("문서 내용 브로드캐스트 완료");
+        sendToRoom(room, responseEvent);
+        m_server.printMessage("[" + receivedEvent.getUserName() + "] locks released after logout\n");
+    }
+
+    private void broadcastCurrentContents(DocumentRoom room) {
+        // 방에 브로드캐스트 (문서를 새로 불러온 경우)
+        pushCurrentContents(room, m_server.getRegistry().codecFor(room),
+                event -> castToRoom(room, event), "room " + room.getKey());
+    }
+
+    // 새로 들어온 client에게만 현재 문서 전송, 기존 client는 계속 연산만 받음
+    private void sendCurrentContents(DocumentRoom room, String userName) {
+        pushCurrentContents(room, m_server.getRegistry().codecOf(userName),
+                event -> m_serverStub.send(event, userName), "[" + userName + "]");
+    }
+
+    /**
+     * 현재 문서 전송 : 방 스레드에서 스냅샷과 revision만 O(1)로 잡고, 직렬화/압축은 encode 단계에서 처리
+     * 방 스레드에서만 연산을 적용하므로 스냅샷 내용과 revision이 어긋나지 않음
+     * 바이너리를 협상했으면 압축 조각(PUSH_DOCUMENT_CHUNK)으로, 아니면 PUSH_DOCUMENT_MODEL 하나로 보냄
+     */
+    private void pushCurrentContents(DocumentRoom room, WireCodec codec, Predicate<CMEvent> send, String target) {
+        m_broadcaster.flush(room); // 스냅샷보다 앞선 연산이 먼저 나가도록
+        DocumentSnapshot snapshot = room.getController().getDocumentModel().snapshot();
+        long revision = room.getRevision();
+
+        Consumer<CMEvent> deliver = event -> {
+            if (!send.test(event)) {
+                System.out.println("문서 내용 전송 실패: " + target);
+            }
+        };
+        if (codec == WireCodecs.BINARY) {
+            m_pipeline.submitMany(room, emit -> streamContents(snapshot, revision, emit), deliver);
+        } else {
+            m_pipeline.submit(room, () -> currentContentsEvent(snapshot, revision, codec), deliver);
         }
+        m_server.printMessage("PUSH_CURRENT_CONTENTS to " + target + " (revision " + revision + ")\n");
     }
 
-    private void broadcastCurrentContents() {
-        System.out.println("[broadcasstCurrentContents]");
+    /**
+     * 스냅샷을 압축 조각으로 나눠서 emit (문서 전체 문자열을 만들지 않고 조각이 찰 때마다 넘김)
+     * 첫 조각에 topLineId/revision을 싣고, client는 라인 수만큼 받으면 문서를 교체함
+     */
+    private void streamContents(DocumentSnapshot snapshot, long revision, Consumer<CMEvent> emit) {
+        String transferId = UUID.randomUUID().toString();
+        int[] chunkCount = {0};
+        long[] totalBytes = {0};
+
+        try (SnapshotStream.Writer writer = new SnapshotStream.Writer(snapshot.getLineCount(),
+                SnapshotStream.DEFAULT_CHUNK_BYTES, chunk -> {
+            CMUserEvent chunkEvent = new CMUserEvent();
+            chunkEvent.setStringID("PUSH_DOCUMENT_CHUNK");
+            chunkEvent.setEventField(CMInfo.CM_STR, "transferId", transferId);
+            chunkEvent.setEventField(CMInfo.CM_INT, "seq", String.valueOf(chunkCount[0]));
+            if (chunkCount[0] == 0) {
+                chunkEvent.setEventField(CMInfo.CM_LONG, "topLineId", String.valueOf(snapshot.getTopLineId()));
+                chunkEvent.setEventField(CMInfo.CM_LONG, "revision", String.valueOf(revision));
+            }
+            chunkEvent.setEventField(CMInfo.CM_STR, "data", Base64.getEncoder().encodeToString(chunk));
+            chunkCount[0]++;
+            totalBytes[0] += chunk.length;
+            emit.accept(chunkEvent);
+        })) {
+            for (TextLine line : snapshot.lines()) {
+                writer.write(line);
+            }
+        }
+
+        System.out.println(" >> streamed " + snapshot.getLineCount() + " lines in " + chunkCount[0] + " chunks ("
+                + totalBytes[0] + " bytes compressed), revision " + revision);
+    }
 
-        // 사용자 정의 이벤트 생성
+    /**
+     * 현재 문서 내용 이벤트 (revision : 이 스냅샷에 반영된 마지막 연산)
+     * client는 revision 이하의 연산은 버리고 그 다음 연산부터 적용함
+     */
+    private CMUserEvent currentContentsEvent(DocumentSnapshot snapshot, long revision, WireCodec codec) {
         CMUserEvent userEvent = new CMUserEvent();
         userEvent.setStringID("PUSH_DOCUMENT_MODEL"); // 이벤트 구분자
 
-        // 내용 직렬화
-        String serializedContents = m_serverApp.getSerializedContents();
-        long topLineId = m_serverApp.getTopLineId();
+        String serializedContents = codec.encodeLines(snapshot.lines());
 
-        System.out.println(" >> serializedContents starts");
-        System.out.println(" " + serializedContents);
-        System.out.println(" >> serializedContents ends" );
+        System.out.println(" >> serializedContents: " + serializedContents.length() + " chars (" + codec.name()
+                + "), revision " + revision);
 
         userEvent.setEventField(CMInfo.CM_STR, "serializedContents", serializedContents);
-        userEvent.setEventField(CMInfo.CM_LONG, "topLineId", String.valueOf(topLineId));
-
-        // 3. 브로드캐스트
-        boolean broadcastSuccess = m_serverStub.broadcast(userEvent);
-        if(broadcastSuccess){
-            System.out.println("문서 내용 브로드캐스트 완료");
-            m_serverApp.printMessage("PUSH_CURRENT_CONTENTS succeeded!!\n");
-        }
-        else{
-            System.out.println("문서 내용 브로드캐스트 완료");
-        }
+        userEvent.setEventField(CMInfo.CM_LONG, "topLineId", String.valueOf(snapshot.getTopLineId()));
+        userEvent.setEventField(CMInfo.CM_LONG, "revision", String.valueOf(revision));
+        return userEvent;
     }
 
     // todo 주석 처리
@@ -442,12 +723,12 @@ public class CMServerEventHandler implements CMAppEventHandler {
         String info = de.getDummyInfo();
 
         String senderId = de.getSender();
-        String myId = m_serverApp.getMyself().getName();
+        String myId = m_server.getMyself().getName();
         if (senderId.equals(myId)) {
             return;
         }
 
-        ObjectMapper objectMapper = new ObjectMapper();
+        ObjectMapper objectMapper = WireCodecs.objectMapper();
         EventContent eventContent = null;
         try {
             eventContent = objectMapper.readValue(info, EventContent.class);
@@ -458,23 +739,23 @@ public class CMServerEventHandler implements CMAppEventHandler {
 
         switch (eventContent.getType()) {
 //            case "edit":
-//                m_serverApp.editLine(eventContent.getLineId(), eventContent.getContent(), eventContent.getClientId());
+//                m_server.editLine(room, eventContent.getLineId(), eventContent.getContent(), eventContent.getClientId());
 //                break;
 //            case "insert_char":
-//                m_serverApp.insertText(eventContent.getLineId(), eventContent.getContent(), eventContent.getPosition());
+//                m_server.insertText(eventContent.getLineId(), eventContent.getContent(), eventContent.getPosition());
 //                break;
 //            case "new_line_after":
-//                long newLineId = m_serverApp.insertLineAfter(eventContent.getLineId(), "", eventContent.getClientId());
+//                long newLineId = m_server.insertLineAfter(room, eventContent.getLineId(), "", eventContent.getClientId());
 //                CMUserEvent userEvent = new CMUserEvent();
 //                userEvent.setHandlerGroup(cme.getHandlerGroup());
 //                userEvent.setHandlerSession(cme.getHandlerSession());
 //                broadcastLockResponse(userEvent, eventContent.getClientId(), eventContent.getLineId(), newLineId);
 //                break;
 //            case "new_line_before":
-//                m_serverApp.insertLineBefore(eventContent.getLineId());
+//                m_server.insertLineBefore(eventContent.getLineId());
 //                break;
 //            case "delete_line":
-//                m_serverApp.deleteLine(eventContent.getLineId());
+//                m_server.deleteLine(room, eventContent.getLineId());
 //                break;
             default:
                 System.out.println("unsupported type!!");
@@ -0,0 +1,136 @@
+package org.example;
+
+import editor.model.DocumentStorage;
+import kr.ac.konkuk.ccslab.cm.entity.CMMember;
+import kr.ac.konkuk.ccslab.cm.entity.CMUser;
+import kr.ac.konkuk.ccslab.cm.stub.CMServerStub;
+import org.example.util.WireCodec;
+import org.example.util.WireCodecs;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * session/group별 편집 방 목록
+ * 이벤트를 보낸 client의 현재 session/group으로 방을 찾고, 처음 쓰일 때 방을 만듦 (로그 복구는 방 스레드에서)
+ */
+public class DocumentRegistry {
+    static final String DEFAULT_ROOM = "default";
+
+    private final Map<String, DocumentRoom> rooms = new ConcurrentHashMap<>();
+    // client → 마지막으로 있던 방 (로그아웃 시에는 CM 사용자 정보가 이미 지워져 있을 수 있음)
+    private final Map<String, DocumentRoom> memberRooms = new ConcurrentHashMap<>();
+    // client → 로그인 후 협상한 codec (협상하지 않은 client는 JSON)
+    private final Map<String, WireCodec> memberCodecs = new ConcurrentHashMap<>();
+    // 방 key → broadcast 프레임 형식 (입장/퇴장/codec 협상 때만 다시 계산)
+    private final Map<String, WireCodec> roomCodecs = new ConcurrentHashMap<>();
+    private final CMServerStub serverStub;
+    private final DocumentStorage storage;
+    private final Path logRoot;
+
+    public DocumentRegistry(CMServerStub serverStub, DocumentStorage storage, Path logRoot) {
+        this.serverStub = serverStub;
+        this.storage = storage;
+        this.logRoot = logRoot;
+    }
+
+    /**
+     * client가 현재 속한 방 (session에 들어가지 않았으면 기본 방)
+     */
+    public DocumentRoom roomOf(String userName) {
+        String session = null;
+        String group = null;
+        CMUser user = findLoginUser(userName);
+        if (user != null && user.getCurrentSession() != null && !user.getCurrentSession().isEmpty()) {
+            session = user.getCurrentSession();
+            group = user.getCurrentGroup();
+        }
+        DocumentRoom room = room(session, group);
+        if (userName != null) {
+            DocumentRoom previous = memberRooms.put(userName, room);
+            if (previous != room) {
+                updateCodecs(previous, room);
+            }
+        }
+        return room;
+    }
+
+    /**
+     * 로그아웃한 client가 있던 방 (없으면 null), 목록에서도 제거
+     */
+    public DocumentRoom leave(String userName) {
+        if (userName == null) return null;
+        memberCodecs.remove(userName);
+        DocumentRoom room = memberRooms.remove(userName);
+        updateCodecs(room);
+        return room;
+    }
+
+    public void setCodec(String userName, WireCodec codec) {
+        memberCodecs.put(userName, codec);
+        updateCodecs(memberRooms.get(userName));
+    }
+
+    public WireCodec codecOf(String userName) {
+        return userName == null ? WireCodecs.JSON : memberCodecs.getOrDefault(userName, WireCodecs.JSON);
+    }
+
+    /**
+     * 방에 보낼 프레임 형식 : 받는 client가 모두 바이너리를 협상했을 때만 바이너리
+     * (기본 방은 전체 broadcast이므로 모든 client 기준), broadcast 프레임마다 불리므로 캐시된 값을 반환
+     */
+    public WireCodec codecFor(DocumentRoom room) {
+        return roomCodecs.getOrDefault(room.getKey(), WireCodecs.JSON);
+    }
+
+    // 구성원이 바뀐 방과 (모든 client를 받는) 기본 방의 프레임 형식 다시 계산
+    // 맵을 바꾼 뒤 lock 안에서 계산하므로 CM 스레드와 방 스레드(codec 협상)가 겹쳐도 마지막 계산이 최신 상태를 반영
+    private synchronized void updateCodecs(DocumentRoom... changed) {
+        for (DocumentRoom room : changed) {
+            if (room != null) {
+                roomCodecs.put(room.getKey(), computeCodec(room));
+            }
+        }
+        DocumentRoom defaultRoom = rooms.get(DEFAULT_ROOM);
+        if (defaultRoom != null) {
+            roomCodecs.put(DEFAULT_ROOM, computeCodec(defaultRoom));
+        }
+    }
+
+    private WireCodec computeCodec(DocumentRoom room) {
+        for (Map.Entry<String, DocumentRoom> member : memberRooms.entrySet()) {
+            if ((room.isDefault() || member.getValue() == room)
+                    && memberCodecs.getOrDefault(member.getKey(), WireCodecs.JSON) != WireCodecs.BINARY) {
+                return WireCodecs.JSON;
+            }
+        }
+        return WireCodecs.BINARY;
+    }
+
+    public DocumentRoom room(String session, String group) {
+        String key = session == null ? DEFAULT_ROOM : keyOf(session, group);
+        return rooms.computeIfAbsent(key, k -> new DocumentRoom(k, session, group, logRoot.resolve(k), storage));
+    }
+
+    public Collection<DocumentRoom> rooms() {
+        return rooms.values();
+    }
+
+    public void closeAll() {
+        rooms.values().forEach(DocumentRoom::close);
+    }
+
+    private CMUser findLoginUser(String userName) {
+        if (userName == null || serverStub.getCMInfo() == null) return null;
+        CMMember loginUsers = serverStub.getCMInfo().getInteractionInfo().getLoginUsers();
+        return loginUsers == null ? null : loginUsers.findMember(userName);
+    }
+
+    // 디렉터리 이름으로도 쓰이므로 안전한 문자만 남김
+    private static String keyOf(String session, String group) {
+        String key = session + "-" + (group == null || group.isEmpty() ? "_" : group);
+        return key.replaceAll("[^A-Za-z0-9_.-]", "_");
+    }
+}
@@ -0,0 +1,214 @@
+package org.example;
+
+import editor.controller.DocumentServerController;
+import editor.model.ConcurrencyMode;
+import editor.model.DocumentModel;
+import editor.model.DocumentSnapshot;
+import editor.model.DocumentStorage;
+import lombok.Getter;
+import org.example.dto.EventContent;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 하나의 편집 방 (CM session/group 하나)
+ * 방마다 독립된 문서 모델과 write-ahead log를 가짐
+ * 방의 요청은 execute()로 넘겨 방 전용 스레드(RoomActor) 하나에서 순서대로 처리함
+ * session이 null이면 session에 들어가지 않은 client들이 쓰는 기본 방
+ */
+public class DocumentRoom {
+    // 재전송용으로 보관하는 최근 연산 수
+    static final int HISTORY_SIZE = Integer.getInteger("editor.history.size", 4096);
+    // 방 문서 모델의 동기화 방식, 방의 변경은 RoomActor 스레드 하나에서만 하므로 기본은 GLOBAL
+    // STRIPED는 여러 스레드가 한 문서를 동시에 고칠 때만 의미가 있음 (DocumentModelThroughputBenchmark)
+    static final ConcurrencyMode MODEL_MODE =
+            ConcurrencyMode.valueOf(System.getProperty("editor.model.mode", ConcurrencyMode.GLOBAL.name()));
+
+    @Getter
+    private final String key;
+    @Getter
+    private final String session;
+    @Getter
+    private final String group;
+    @Getter
+    private final DocumentServerController controller;
+    // 적용된 편집 연산 로그 (크래시 후 재시작 시 문서 복구)
+    private final WriteAheadLog opLog;
+    private boolean logFailureReported = false;
+    private final DocumentStorage storage;
+    // broadcast한 연산 수, 문서 내용(스냅샷)이 연산 흐름의 어디까지 반영했는지 나타냄
+    private final AtomicLong revision = new AtomicLong();
+    // 최근 broadcast한 연산 (revision % HISTORY_SIZE 위치), historyFloor 이하는 재전송 불가
+    private final EventContent[] history = new EventContent[HISTORY_SIZE];
+    private long historyFloor = 0;
+    // 방 전용 처리 스레드 (문서 모델 / 로그 / revision은 이 스레드에서만 바뀜)
+    private final RoomActor actor;
+    // client별 가장 최근에 들어온 lock 요청 번호 (큐에서 기다리는 이전 요청은 처리하지 않고 버림)
+    private final Map<String, Long> latestLockRequest = new ConcurrentHashMap<>();
+    private final AtomicLong lockRequestSeq = new AtomicLong();
+
+    DocumentRoom(String key, String session, String group, Path logDirectory, DocumentStorage storage) {
+        this.key = key;
+        this.session = session;
+        this.group = group;
+        this.storage = storage;
+        this.controller = new DocumentServerController(new DocumentModel(MODEL_MODE));
+        this.opLog = new WriteAheadLog(logDirectory);
+        this.actor = new RoomActor(key);
+        // 복구(checkpoint 로드 + 로그 재생)는 방 스레드의 첫 작업 → 방을 찾는 CM 스레드는 기다리지 않고,
+        // 이후 들어오는 요청은 복구가 끝난 문서에 순서대로 적용됨
+        this.actor.execute(this::recoverFromLog);
+    }
+
+    /**
+     * 방 스레드에서 처리할 client 요청 등록 (들어온 순서대로 처리)
+     * 큐가 가득 차 있으면 넣지 않고 false → 호출한 쪽이 요청을 버리고 보낸 client에게 알림
+     */
+    public boolean offer(Runnable task) {
+        return actor.offer(task);
+    }
+
+    // 입장/퇴장 등 버리면 안 되는 제어 작업 등록 (큐 용량과 상관없이 넣음)
+    public void execute(Runnable task) {
+        actor.execute(task);
+    }
+
+    // 지난 호출 이후 가장 길었던 방 입력 큐 길이
+    public int takePeakQueueDepth() {
+        return actor.takePeakDepth();
+    }
+
+    /**
+     * lock 요청이 들어올 때(CM 스레드) 번호를 받아둠, 같은 client의 이전 요청은 이 번호로 밀려남
+     */
+    public long offerLockRequest(String clientID) {
+        long ticket = lockRequestSeq.incrementAndGet();
+        latestLockRequest.put(clientID, ticket);
+        return ticket;
+    }
+
+    // 방 스레드에서 처리 직전 확인 : 같은 client의 더 새로운 lock 요청이 뒤에 있으면 false
+    public boolean isLatestLockRequest(String clientID, long ticket) {
+        return latestLockRequest.getOrDefault(clientID, ticket) == ticket;
+    }
+
+    // 로그아웃한 client의 요청 번호 정리 (방 스레드, 앞서 들어온 요청은 이미 처리됨)
+    public void forgetLockRequests(String clientID) {
+        latestLockRequest.remove(clientID);
+    }
+
+    public boolean isDefault() {
+        return session == null;
+    }
+
+    public long getRevision() {
+        return revision.get();
+    }
+
+    /**
+     * broadcast할 연산에 다음 revision을 붙이고 재전송용 history에 보관
+     */
+    public synchronized void stamp(EventContent op) {
+        long next = revision.incrementAndGet();
+        op.setRevision(next);
+        history[(int) (next % HISTORY_SIZE)] = op;
+    }
+
+    /**
+     * fromRevision부터 현재까지의 연산 (history 범위를 벗어나면 null → 전체 문서를 보내야 함)
+     */
+    public synchronized List<EventContent> opsSince(long fromRevision) {
+        long current = revision.get();
+        if (fromRevision <= historyFloor || fromRevision <= current - HISTORY_SIZE) {
+            return null;
+        }
+        List<EventContent> ops = new ArrayList<>();
+        for (long r = fromRevision; r <= current; r++) {
+            ops.add(history[(int) (r % HISTORY_SIZE)]);
+        }
+        return ops;
+    }
+
+    /**
+     * 마지막 checkpoint + 로그를 재생해서 크래시 직전 문서 상태 복구 (방 스레드)
+     * 접속 중이던 client는 모두 끊겼으므로 복구가 끝나면 lock은 초기화
+     */
+    private void recoverFromLog() {
+        DocumentSnapshot checkpoint = opLog.loadCheckpoint();
+        if (checkpoint != null) {
+            controller.setDocumentModel(DocumentModel.fromSnapshot(checkpoint, MODEL_MODE));
+        }
+        int replayed = opLog.replay(op -> {
+            if ("load_document".equals(op.getType())) {
+                DocumentSnapshot snapshot = storage.loadDocument(op.getContent());
+                if (snapshot != null) {
+                    controller.setDocumentModel(DocumentModel.fromSnapshot(snapshot, MODEL_MODE));
+                    controller.resetAllLockInfo();
+                }
+            } else {
+                controller.apply(op);
+            }
+        });
+        controller.resetAllLockInfo();
+        System.out.println("[WAL] room " + key + ": recovered " + replayed + " ops" + (checkpoint != null ? " on top of checkpoint" : ""));
+    }
+
+    /**
+     * 모델에 적용된 연산을 로그에 기록 (fsync와 checkpoint는 writer 스레드가 처리)
+     */
+    public void logOp(EventContent op) {
+        opLog.append(op);
+        if (opLog.needsCheckpoint()) {
+            opLog.checkpoint(controller.getDocumentModel().snapshot(), controller.lockRecords());
+        }
+    }
+
+    /**
+     * 로그 쓰기가 실패했으면 그 메시지를 한 번만 반환 (방 스레드, 이후 편집은 디스크에 남지 않음)
+     */
+    public String takeLogFailure() {
+        IOException failure = opLog.getFailure();
+        if (failure == null || logFailureReported) return null;
+        logFailureReported = true;
+        return "[WAL] room " + key + ": write-ahead log disabled, edits are no longer durable (" + failure + ")";
+    }
+
+    // lock 이동 기록 (oldLineID: 해제한 라인, lineID: 얻은 라인, 없으면 -1)
+    public void logLockMove(String clientId, long oldLineID, long lineID) {
+        logOp(EventContent.builder()
+                .type("lock_move")
+                .lineId(lineID)
+                .nextLineId(oldLineID)
+                .clientId(clientId)
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+
+    // 보관된 문서로 방의 문서 교체
+    public void loadDocument(String docId, DocumentSnapshot snapshot) {
+        DocumentModel current = controller.getDocumentModel();
+        controller.setDocumentModel(DocumentModel.fromSnapshot(snapshot, current.getConcurrencyMode()));
+        controller.resetAllLockInfo();
+        synchronized (this) {
+            // 이전 문서에 대한 연산은 새 문서에 다시 적용할 수 없음
+            historyFloor = revision.get();
+        }
+        logOp(EventContent.builder()
+                .type("load_document")
+                .content(docId)
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+
+    void close() {
+        actor.close();
+        opLog.close();
+    }
+}
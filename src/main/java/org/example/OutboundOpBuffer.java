@@ -0,0 +1,176 @@
+package org.example;
+
+import org.example.dto.EventContent;
+
+import javax.swing.Timer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * client가 서버로 보내는 글자 단위 연산 버퍼
+ * 같은 라인에서 이어지는 입력/삭제를 하나의 연산으로 합쳐서 한 프레임으로 보냄
+ * - 연속 입력 "a","b","c" → insert "abc" / 연속 BACK_SPACE, DELETE → delete 범위 하나
+ * - 합칠 수 없는 연산은 같은 프레임 안에 순서대로 쌓음
+ * flush 시점 : 첫 연산 후 windowMillis 경과, 쌓인 글자 수 maxChars 초과, 다른 라인 편집,
+ *             lock 이동이나 라인 구조 변경 요청 직전 (서버에서 위치가 어긋나지 않도록)
+ * 모든 메서드는 여러 스레드(EDT, CM 이벤트 스레드)에서 호출될 수 있으므로 버퍼는 this 모니터로 보호
+ * 전송(sender)은 모니터를 놓은 뒤 sendLock 안에서 만들어진 순서대로 (전송 중에도 다른 스레드가 입력을 쌓을 수 있음)
+ */
+public class OutboundOpBuffer {
+    static final int DEFAULT_WINDOW_MILLIS = Integer.getInteger("editor.coalesce.ms", 40);
+    static final int DEFAULT_MAX_CHARS = Integer.getInteger("editor.coalesce.chars", 256);
+
+    private final Consumer<List<EventContent>> sender;
+    private final int maxChars;
+    private final Timer timer;
+    private final Object sendLock = new Object();
+
+    private final List<EventContent> pending = new ArrayList<>();
+    private final ArrayDeque<List<EventContent>> ready = new ArrayDeque<>(); // 잘라낸 뒤 아직 안 보낸 프레임
+    private long pendingLineId = -1L;
+    private int pendingChars = 0;
+
+    public OutboundOpBuffer(Consumer<List<EventContent>> sender) {
+        this(sender, DEFAULT_WINDOW_MILLIS, DEFAULT_MAX_CHARS);
+    }
+
+    public OutboundOpBuffer(Consumer<List<EventContent>> sender, int windowMillis, int maxChars) {
+        this.sender = sender;
+        this.maxChars = maxChars;
+        this.timer = new Timer(windowMillis, e -> flush());
+        this.timer.setRepeats(false);
+    }
+
+    public void insert(long lineId, int position, String text, String clientId) {
+        synchronized (this) {
+            bufferInsert(lineId, position, text, clientId);
+        }
+        sendReady();
+    }
+
+    public void delete(long lineId, int position, int length, String clientId) {
+        synchronized (this) {
+            bufferDelete(lineId, position, length, clientId);
+        }
+        sendReady();
+    }
+
+    private void bufferInsert(long lineId, int position, String text, String clientId) {
+        prepare(lineId);
+        EventContent last = last();
+        if (last != null && "insert_text".equals(last.getType())
+                && last.getPosition() + last.getContent().length() == position) {
+            // 바로 뒤에 이어서 입력
+            replaceLast(insertOp(lineId, last.getPosition(), last.getContent() + text, clientId));
+        } else {
+            pending.add(insertOp(lineId, position, text, clientId));
+        }
+        added(text.length());
+    }
+
+    private void bufferDelete(long lineId, int position, int length, String clientId) {
+        prepare(lineId);
+        EventContent last = last();
+        if (last != null && "delete_text".equals(last.getType())
+                && (position + length == last.getPosition() || position == last.getPosition())) {
+            // 연속 BACK_SPACE(앞으로 확장) 또는 연속 DELETE(같은 위치에서 뒤로 확장)
+            replaceLast(deleteOp(lineId, Math.min(position, last.getPosition()), last.getLength() + length, clientId));
+        } else if (last != null && "insert_text".equals(last.getType())
+                && position + length == last.getPosition() + last.getContent().length()
+                && position >= last.getPosition()) {
+            // 방금 입력한 글자를 지우는 경우 아직 안 보낸 입력에서 빼기만 함
+            String remain = last.getContent().substring(0, position - last.getPosition());
+            if (remain.isEmpty()) {
+                pending.remove(pending.size() - 1);
+            } else {
+                replaceLast(insertOp(lineId, last.getPosition(), remain, clientId));
+            }
+        } else {
+            pending.add(deleteOp(lineId, position, length, clientId));
+        }
+        added(length);
+    }
+
+    /**
+     * 쌓인 연산을 바로 전송 (lock 이동, 구조 변경 요청 전에 호출)
+     */
+    public void flush() {
+        synchronized (this) {
+            timer.stop();
+            cut();
+        }
+        sendReady();
+    }
+
+    // 쌓인 연산을 프레임 하나로 잘라 ready에 넣음 (this 모니터 안에서 호출, 전송은 sendReady)
+    private void cut() {
+        if (pending.isEmpty()) return;
+        ready.add(new ArrayList<>(pending));
+        pending.clear();
+        pendingLineId = -1L;
+        pendingChars = 0;
+    }
+
+    // 모니터 밖에서 호출 : 잘라둔 프레임을 순서대로 전송
+    private void sendReady() {
+        synchronized (sendLock) {
+            while (true) {
+                List<EventContent> batch;
+                synchronized (this) {
+                    batch = ready.poll();
+                }
+                if (batch == null) return;
+                sender.accept(batch);
+            }
+        }
+    }
+
+    // 다른 라인 편집이면 먼저 잘라두고, 첫 연산이면 시간 창 시작
+    private void prepare(long lineId) {
+        if (!pending.isEmpty() && pendingLineId != lineId) {
+            cut();
+        }
+        if (pending.isEmpty()) {
+            timer.restart();
+        }
+        pendingLineId = lineId;
+    }
+
+    private void added(int chars) {
+        pendingChars += chars;
+        if (pendingChars >= maxChars) {
+            timer.stop();
+            cut();
+        }
+    }
+
+    private EventContent last() {
+        return pending.isEmpty() ? null : pending.get(pending.size() - 1);
+    }
+
+    private void replaceLast(EventContent op) {
+        pending.set(pending.size() - 1, op);
+    }
+
+    private static EventContent insertOp(long lineId, int position, String text, String clientId) {
+        return EventContent.builder()
+                .type("insert_text")
+                .lineId(lineId)
+                .position(position)
+                .content(text)
+                .clientId(clientId)
+                .build();
+    }
+
+    private static EventContent deleteOp(long lineId, int position, int length, String clientId) {
+        return EventContent.builder()
+                .type("delete_text")
+                .lineId(lineId)
+                .position(position)
+                .length(length)
+                .clientId(clientId)
+                .build();
+    }
+}
@@ -0,0 +1,118 @@
+package org.example;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 서버 출력 파이프라인 : encode 단계 → send 단계
+ * 방 스레드는 보낼 내용을 넘기기만 하고 바로 다음 요청을 처리하며,
+ * 직렬화/압축과 네트워크 전송은 각 단계에서 겹쳐서 진행됨
+ * - 방 key의 hash로 나눈 LANES개의 lane마다 encode/send 스레드가 따로 있음
+ *   → 큰 문서 전송이나 느린 send는 같은 lane의 방만 늦춤
+ * - 같은 방은 항상 같은 lane이고 두 단계 모두 FIFO이므로 넘긴 순서대로 전송됨 (연산 프레임과 lock 응답 등의 순서 유지)
+ * - 단계마다 큐는 QUEUE_CAPACITY까지, 가득 차면 넘기는 쪽(방 스레드)이 기다림 → 방 입력 큐가 차면 요청을 거절 (backpressure)
+ */
+public class OutboundPipeline implements AutoCloseable {
+    static final int LANES = Integer.getInteger("editor.outbound.lanes",
+            Math.max(2, Runtime.getRuntime().availableProcessors()));
+    static final int QUEUE_CAPACITY = Integer.getInteger("editor.outbound.queue", 1024);
+
+    private final Lane[] lanes = new Lane[LANES];
+    private final AtomicInteger peakEncodeDepth = new AtomicInteger();
+    private final AtomicInteger peakSendDepth = new AtomicInteger();
+
+    public OutboundPipeline() {
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane(i);
+        }
+    }
+
+    /**
+     * room의 lane에서 메시지를 만들고(encode) 전송
+     */
+    public <T> void submit(DocumentRoom room, Supplier<T> encode, Consumer<T> deliver) {
+        submitMany(room, emit -> emit.accept(encode.get()), deliver);
+    }
+
+    /**
+     * room의 lane에서 메시지 여러 개를 차례로 만들어 바로바로 전송 (문서 조각 전송 등)
+     */
+    public <T> void submitMany(DocumentRoom room, Consumer<Consumer<T>> encode, Consumer<T> deliver) {
+        Lane lane = lanes[Math.floorMod(room.getKey().hashCode(), lanes.length)];
+        lane.encodeStage.execute(() -> {
+            try {
+                encode.accept(message -> {
+                    lane.sendStage.execute(() -> deliver.accept(message));
+                    peakSendDepth.accumulateAndGet(lane.sendStage.getQueue().size(), Math::max);
+                });
+            } catch (RuntimeException e) {
+                //noinspection CallToPrintStackTrace
+                e.printStackTrace();
+            }
+        });
+        peakEncodeDepth.accumulateAndGet(lane.encodeStage.getQueue().size(), Math::max);
+    }
+
+    // 지난 호출 이후 단계별 최대 큐 길이 (가장 긴 lane 기준 / 용량)
+    public String takePeakDepths() {
+        return "encode=" + peakEncodeDepth.getAndSet(0) + "/" + QUEUE_CAPACITY
+                + ", send=" + peakSendDepth.getAndSet(0) + "/" + QUEUE_CAPACITY;
+    }
+
+    @Override
+    public void close() {
+        for (Lane lane : lanes) {
+            lane.encodeStage.shutdown();
+        }
+        try {
+            for (Lane lane : lanes) {
+                lane.encodeStage.awaitTermination(1, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Lane lane : lanes) {
+            lane.sendStage.shutdown();
+        }
+    }
+
+    private static class Lane {
+        final ThreadPoolExecutor encodeStage;
+        final ThreadPoolExecutor sendStage;
+
+        Lane(int index) {
+            this.encodeStage = stage("outbound-encode-" + index);
+            this.sendStage = stage("outbound-send-" + index);
+        }
+    }
+
+    // 큐가 가득 차면 자리가 날 때까지 넘기는 스레드가 기다림 (순서를 지키기 위해 버리거나 호출 스레드에서 실행하지 않음)
+    private static final RejectedExecutionHandler WAIT_FOR_SPACE = (task, executor) -> {
+        if (executor.isShutdown()) return;
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    };
+
+    private static ThreadPoolExecutor stage(String name) {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+            Thread t = new Thread(() -> {
+                try {
+                    r.run();
+                } catch (RuntimeException e) {
+                    //noinspection CallToPrintStackTrace
+                    e.printStackTrace();
+                }
+            }, name);
+            t.setDaemon(true);
+            return t;
+        }, WAIT_FOR_SPACE);
+    }
+}
@@ -0,0 +1,81 @@
+package org.example;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * 방 하나의 요청을 순서대로 처리하는 전용 스레드 (single writer)
+ * 방의 문서 모델 / 로그 / revision은 이 스레드에서만 바뀌므로 방끼리, 그리고 CM 이벤트 스레드와 서로 막지 않음
+ * 넣는 쪽(CM 이벤트 스레드)은 절대 기다리지 않음 : client 요청은 큐가 QUEUE_CAPACITY만큼 차 있으면 offer가 거절(false)하고,
+ * 입장/퇴장 같은 드문 제어 작업은 execute로 항상 넣음
+ */
+class RoomActor {
+    static final int QUEUE_CAPACITY = Integer.getInteger("editor.room.queue", 1024);
+
+    // 용량은 offer에서 확인 (넣는 스레드가 CM 이벤트 스레드 하나라서 크기 확인과 추가 사이에 경쟁 없음)
+    private final BlockingQueue<Runnable> inbox = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile int peakDepth = 0;
+
+    RoomActor(String name) {
+        this.thread = new Thread(this::run, "room-" + name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * client 요청 등록, 큐가 가득 차 있으면 넣지 않고 false (요청을 버릴지는 호출한 쪽이 정함)
+     */
+    boolean offer(Runnable task) {
+        if (inbox.size() >= QUEUE_CAPACITY) {
+            return false;
+        }
+        execute(task);
+        return true;
+    }
+
+    // 용량과 상관없이 등록 (제어 작업용)
+    void execute(Runnable task) {
+        inbox.add(task);
+        int depth = inbox.size();
+        if (depth > peakDepth) {
+            peakDepth = depth;
+        }
+    }
+
+    // 지난 호출 이후 가장 길었던 큐 길이
+    int takePeakDepth() {
+        int peak = Math.max(peakDepth, inbox.size());
+        peakDepth = 0;
+        return peak;
+    }
+
+    // 이미 들어온 요청은 모두 처리한 뒤 종료
+    void close() {
+        execute(() -> running = false);
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            Runnable task;
+            try {
+                task = inbox.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // 요청 하나가 실패해도 방은 계속 동작해야 함
+                //noinspection CallToPrintStackTrace
+                e.printStackTrace();
+            }
+        }
+    }
+}
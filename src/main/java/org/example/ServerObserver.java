@@ -0,0 +1,34 @@
+package org.example;
+
+/**
+ * 서버 상태를 지켜보는 쪽 (디버그 화면, 콘솔)
+ * 방 스레드에서 요청마다 호출되므로 바로 반환해야 함 (그리기는 각자 모아서 자기 스레드에서)
+ */
+public interface ServerObserver {
+    // 화면 없이 실행할 때 기본값 : 아무것도 하지 않음
+    ServerObserver NONE = new ServerObserver() {
+        @Override
+        public void printMessage(String message) {
+        }
+
+        @Override
+        public void documentChanged(DocumentRoom room) {
+        }
+    };
+
+    // 화면 없이 실행하면서 처리 메시지만 표준 출력으로 보고 싶을 때
+    ServerObserver CONSOLE = new ServerObserver() {
+        @Override
+        public void printMessage(String message) {
+            System.out.print(message);
+        }
+
+        @Override
+        public void documentChanged(DocumentRoom room) {
+        }
+    };
+
+    void printMessage(String message);
+
+    void documentChanged(DocumentRoom room);
+}
@@ -0,0 +1,306 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import editor.model.DocumentSnapshot;
+import editor.model.DocumentStorage;
+import org.example.dto.EventContent;
+import org.example.util.WireCodecs;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * 서버에 적용된 편집 연산의 write-ahead log
+ * - append()는 메모리 버퍼에만 넣고 바로 반환, writer 스레드가 모인 레코드를 한 번에 쓰고 fsync 한 번 (group commit)
+ *   이벤트 처리 스레드가 하나라서 fsync를 기다리면 배치가 생기지 않으므로 기다리지 않음
+ *   → 크래시 시 잃을 수 있는 건 마지막 fsync 한 번 분량
+ * - 레코드: [len][crc32][lsn][EventContent JSON], 깨진 꼬리는 복구 시 잘라냄
+ * - 로그가 커지면 현재 문서를 checkpoint 스냅샷으로 저장하고 로그를 비움 (저장/fsync/truncate도 writer 스레드에서)
+ * - 쓰기가 실패하면 로그는 멈추고 이후 append는 버려짐, getFailure()로 확인
+ */
+public class WriteAheadLog implements AutoCloseable {
+    private static final String LOG_FILE = "ops.log";
+    private static final String CHECKPOINT_ID = "live";
+    private static final long CHECKPOINT_BYTES = 64L << 20;
+
+    private final ObjectMapper objectMapper = WireCodecs.objectMapper();
+    private final Path logPath;
+    private final DocumentStorage checkpoints;
+    private final FileChannel channel;
+    private final Thread writer;
+
+    // 아래 필드는 this 모니터로 보호
+    private List<ByteBuffer> pending = new ArrayList<>();
+    private long nextLsn = 1;
+    private long durableLsn = 0;
+    private long checkpointLsn = 0;
+    private long bytesSinceCheckpoint = 0;
+    private boolean closed = false;
+    private IOException failure;
+    // writer 스레드가 처리할 checkpoint 요청 (한 번에 하나)
+    private Checkpoint checkpointRequest;
+
+    public WriteAheadLog(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            this.logPath = directory.resolve(LOG_FILE);
+            this.checkpoints = new DocumentStorage(directory.resolve("checkpoint"));
+            this.channel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("write-ahead log open failed: " + directory, e);
+        }
+        this.writer = new Thread(this::writeLoop, "wal-writer");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * 마지막 checkpoint 스냅샷 (없으면 null)
+     */
+    public DocumentSnapshot loadCheckpoint() {
+        DocumentSnapshot snapshot = checkpoints.loadDocument(CHECKPOINT_ID);
+        if (snapshot != null) {
+            String title = checkpoints.listDocuments().stream()
+                    .filter(meta -> CHECKPOINT_ID.equals(meta.id))
+                    .findFirst().map(meta -> meta.title).orElse("0");
+            checkpointLsn = Long.parseLong(title); // checkpoint 제목에 포함된 마지막 lsn
+        }
+        return snapshot;
+    }
+
+    /**
+     * checkpoint 이후 레코드를 순서대로 재생하고 writer 스레드 시작, 재생한 연산 수 반환
+     */
+    public synchronized int replay(Consumer<EventContent> apply) {
+        int replayed = 0;
+        long validEnd = 0;
+        long lastLsn = checkpointLsn;
+        try {
+            ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(logPath));
+            try {
+                while (buf.remaining() >= 16) {
+                    int length = buf.getInt();
+                    int checksum = buf.getInt();
+                    if (length < 8 || length > buf.remaining()) break;
+                    ByteBuffer payload = buf.slice();
+                    payload.limit(length);
+                    CRC32 crc = new CRC32();
+                    crc.update(payload.duplicate());
+                    if ((int) crc.getValue() != checksum) break;
+
+                    long lsn = payload.getLong();
+                    if (lsn > checkpointLsn) {
+                        byte[] json = new byte[payload.remaining()];
+                        payload.get(json);
+                        apply.accept(objectMapper.readValue(json, EventContent.class));
+                        replayed++;
+                    }
+                    lastLsn = Math.max(lastLsn, lsn);
+                    buf.position(buf.position() + length);
+                    validEnd = buf.position();
+                }
+            } catch (BufferUnderflowException e) {
+                // 레코드 내부가 깨진 경우도 꼬리로 취급
+            }
+            if (validEnd < buf.capacity()) {
+                System.out.println("[WAL] truncating torn log tail at " + validEnd);
+                channel.truncate(validEnd);
+            }
+            bytesSinceCheckpoint = validEnd;
+        } catch (IOException e) {
+            throw new UncheckedIOException("write-ahead log replay failed: " + logPath, e);
+        }
+        nextLsn = lastLsn + 1;
+        durableLsn = lastLsn;
+        writer.start();
+        return replayed;
+    }
+
+    /**
+     * 적용된 연산 기록 (fsync를 기다리지 않음)
+     */
+    public void append(EventContent op) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(op);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        synchronized (this) {
+            if (closed) return;
+            enqueue(json);
+            notifyAll();
+        }
+    }
+
+    // lsn을 붙여 pending에 추가 (this 모니터 안에서 호출)
+    private void enqueue(byte[] json) {
+        ByteBuffer payload = ByteBuffer.allocate(8 + json.length);
+        payload.putLong(nextLsn++).put(json).flip();
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        ByteBuffer record = ByteBuffer.allocate(8 + payload.remaining());
+        record.putInt(payload.remaining()).putInt((int) crc.getValue()).put(payload).flip();
+        bytesSinceCheckpoint += record.remaining();
+        pending.add(record);
+    }
+
+    /**
+     * 쓰기 실패로 로그가 멈췄으면 그 원인 (정상이면 null)
+     */
+    public synchronized IOException getFailure() {
+        return failure;
+    }
+
+    /**
+     * 지금까지 append된 레코드가 모두 디스크에 반영될 때까지 대기
+     */
+    public synchronized void sync() {
+        long target = nextLsn - 1;
+        while (durableLsn < target && failure == null && writer.isAlive()) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public synchronized boolean needsCheckpoint() {
+        return checkpointRequest == null && !closed && bytesSinceCheckpoint > CHECKPOINT_BYTES;
+    }
+
+    /**
+     * 현재 문서를 checkpoint로 저장하고 로그를 비우도록 writer 스레드에 요청 (기다리지 않음)
+     * 스냅샷에 lock 정보는 없으므로 현재 lock 상태(lockRecords)를 새 로그 맨 앞에 다시 기록함
+     * append와 같은 스레드에서 호출해야 함 (snapshot이 지금까지 append된 연산과 정확히 맞아야 하므로)
+     */
+    public void checkpoint(DocumentSnapshot snapshot, List<EventContent> lockRecords) {
+        List<byte[]> locks = new ArrayList<>();
+        try {
+            for (EventContent record : lockRecords) {
+                locks.add(objectMapper.writeValueAsBytes(record));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        synchronized (this) {
+            if (closed || checkpointRequest != null) return;
+            // 지금까지의 레코드는 checkpoint 전에 쓸 배치로 떼어두고, lock 레코드부터 새 로그에 들어감
+            checkpointRequest = new Checkpoint(snapshot, nextLsn - 1, pending);
+            pending = new ArrayList<>();
+            bytesSinceCheckpoint = 0;
+            locks.forEach(this::enqueue);
+            notifyAll();
+        }
+    }
+
+    @Override
+    public void close() {
+        sync();
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join(1000);
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.out.println("[WAL] close failed: " + e);
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            List<ByteBuffer> batch;
+            long batchLsn;
+            Checkpoint request;
+            synchronized (this) {
+                while (pending.isEmpty() && checkpointRequest == null && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                request = checkpointRequest;
+                if (request != null) {
+                    batch = request.before;
+                    batchLsn = request.lsn;
+                } else if (!pending.isEmpty()) {
+                    batch = pending;
+                    pending = new ArrayList<>();
+                    batchLsn = nextLsn - 1;
+                } else {
+                    return;
+                }
+            }
+            try {
+                write(batch);
+                if (request != null) {
+                    setDurable(batchLsn);
+                    // 스냅샷 저장이 끝난 뒤에만 로그를 비우므로 그 사이 크래시가 나도 lsn으로 중복 재생을 걸러냄
+                    checkpoints.saveDocument(CHECKPOINT_ID, String.valueOf(request.lsn), request.snapshot);
+                    channel.truncate(0);
+                    channel.force(true);
+                    synchronized (this) {
+                        checkpointLsn = request.lsn;
+                        checkpointRequest = null;
+                    }
+                    System.out.println("[WAL] checkpoint at lsn " + request.lsn);
+                    continue;
+                }
+            } catch (IOException | UncheckedIOException e) {
+                System.out.println("[WAL] write failed, log disabled: " + e);
+                synchronized (this) {
+                    failure = e instanceof UncheckedIOException ? ((UncheckedIOException) e).getCause() : (IOException) e;
+                    closed = true;
+                    checkpointRequest = null;
+                    notifyAll();
+                }
+                return;
+            }
+            setDurable(batchLsn);
+        }
+    }
+
+    private void write(List<ByteBuffer> batch) throws IOException {
+        ByteBuffer[] buffers = batch.toArray(new ByteBuffer[0]);
+        long remaining = 0;
+        for (ByteBuffer b : buffers) remaining += b.remaining();
+        while (remaining > 0) {
+            remaining -= channel.write(buffers);
+        }
+        channel.force(false); // 배치당 fsync 한 번
+    }
+
+    private synchronized void setDurable(long lsn) {
+        durableLsn = lsn;
+        notifyAll();
+    }
+
+    // checkpoint 요청 : lsn까지 반영된 스냅샷과, 로그를 비우기 전에 써야 하는 나머지 레코드
+    private static class Checkpoint {
+        final DocumentSnapshot snapshot;
+        final long lsn;
+        final List<ByteBuffer> before;
+
+        Checkpoint(DocumentSnapshot snapshot, long lsn, List<ByteBuffer> before) {
+            this.snapshot = snapshot;
+            this.lsn = lsn;
+            this.before = before;
+        }
+    }
+}
@@ -28,7 +28,12 @@ public class EventContent {
     @JsonProperty
     private int position;
     @JsonProperty
+    private int length;
+    @JsonProperty
     private String clientId;
+    // 방에서 적용된 순서 (서버가 broadcast할 때 붙임, 0이면 없음)
+    @JsonProperty
+    private long revision;
     @JsonProperty
     @JsonSerialize(using = LocalDateTimeSerializer.class) // 직렬화 시 필요
     @JsonDeserialize(using = LocalDateTimeDeserializer.class) // 역직렬화 시 필요
@@ -42,4 +47,8 @@ public class EventContent {
     public void setTimestamp(LocalDateTime timestamp){
         this.timestamp = timestamp;
     }
+
+    public void setRevision(long revision){
+        this.revision = revision;
+    }
 }
@@ -0,0 +1,311 @@
+package org.example.util;
+
+import editor.model.TextLine;
+import org.example.dto.EventContent;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 바이너리 형식 (CM 이벤트 필드가 문자열이므로 "~" + Base64로 전송)
+ * - 정수는 zigzag varint, 라인 ID / 시각은 바로 앞 값과의 차이로 기록
+ * - 연산 type은 1 byte 코드, clientID는 프레임 안 문자열 테이블의 번호로 기록 (처음 나올 때만 문자열)
+ * - timestamp는 epoch millis
+ * - 문자열은 [UTF-16 code unit 수] + code unit마다 varint (ASCII 1 byte, 한글 3 byte)
+ *   UTF-8로 바꾸면 짝이 없는 surrogate가 '?'가 되지만 이 형식은 JSON처럼 그대로 보존함 (SnapshotStream도 같은 형식)
+ */
+public class BinaryWireCodec implements WireCodec {
+    static final char PREFIX = '~';
+
+    private static final int VERSION = 2; // 2 : 문자열을 UTF-8 대신 code unit varint로 기록
+    // 알려진 type 코드 (0은 뒤에 문자열로 type을 적음)
+    private static final String[] TYPES = {null, "edit", "insert_text", "delete_text", "new_line_after",
+            "new_line_split", "delete_line", "merge_next_line", "lock_move", "load_document"};
+    private static final Map<String, Integer> TYPE_CODES = new HashMap<>();
+
+    static {
+        for (int i = 1; i < TYPES.length; i++) {
+            TYPE_CODES.put(TYPES[i], i);
+        }
+    }
+
+    // 연산에 어떤 필드가 있는지 나타내는 bit
+    private static final int HAS_LINE_ID = 1;
+    private static final int HAS_NEXT_LINE_ID = 1 << 1;
+    private static final int HAS_SPLIT_INDEX = 1 << 2;
+    private static final int HAS_CONTENT = 1 << 3;
+    private static final int HAS_CLIENT_ID = 1 << 4;
+    private static final int HAS_TIMESTAMP = 1 << 5;
+    private static final int HAS_REVISION = 1 << 6;
+
+    @Override
+    public String name() {
+        return "binary";
+    }
+
+    @Override
+    public String encodeOps(List<EventContent> ops) {
+        Writer out = new Writer();
+        out.varint(VERSION);
+        out.varint(ops.size());
+        long prevLineId = 0;
+        long prevMillis = 0;
+        long prevRevision = 0;
+        for (EventContent op : ops) {
+            Integer code = TYPE_CODES.get(op.getType());
+            out.varint(code == null ? 0 : code);
+            if (code == null) {
+                out.string(op.getType());
+            }
+            int flags = (op.getLineId() != null ? HAS_LINE_ID : 0)
+                    | (op.getNextLineId() != null ? HAS_NEXT_LINE_ID : 0)
+                    | (op.getSplitIndex() != null ? HAS_SPLIT_INDEX : 0)
+                    | (op.getContent() != null ? HAS_CONTENT : 0)
+                    | (op.getClientId() != null ? HAS_CLIENT_ID : 0)
+                    | (op.getTimestamp() != null ? HAS_TIMESTAMP : 0)
+                    | (op.getRevision() != 0 ? HAS_REVISION : 0);
+            out.varint(flags);
+            if (op.getLineId() != null) {
+                out.zigzag(op.getLineId() - prevLineId);
+                prevLineId = op.getLineId();
+            }
+            if (op.getNextLineId() != null) out.zigzag(op.getNextLineId() - prevLineId);
+            if (op.getSplitIndex() != null) out.zigzag(op.getSplitIndex());
+            if (op.getContent() != null) out.string(op.getContent());
+            out.zigzag(op.getPosition());
+            out.zigzag(op.getLength());
+            if (op.getClientId() != null) out.interned(op.getClientId());
+            if (op.getTimestamp() != null) {
+                long millis = toMillis(op.getTimestamp());
+                out.zigzag(millis - prevMillis);
+                prevMillis = millis;
+            }
+            if (op.getRevision() != 0) {
+                out.zigzag(op.getRevision() - prevRevision);
+                prevRevision = op.getRevision();
+            }
+        }
+        return out.finish();
+    }
+
+    @Override
+    public List<EventContent> decodeOps(String frame) {
+        Reader in = new Reader(frame);
+        in.version();
+        int count = in.varint();
+        List<EventContent> ops = new ArrayList<>(count);
+        long prevLineId = 0;
+        long prevMillis = 0;
+        long prevRevision = 0;
+        for (int i = 0; i < count; i++) {
+            int code = in.varint();
+            String type = code == 0 ? in.string() : TYPES[code];
+            int flags = in.varint();
+            EventContent.EventContentBuilder op = EventContent.builder().type(type);
+            if ((flags & HAS_LINE_ID) != 0) {
+                prevLineId += in.zigzag();
+                op.lineId(prevLineId);
+            }
+            if ((flags & HAS_NEXT_LINE_ID) != 0) op.nextLineId(prevLineId + in.zigzag());
+            if ((flags & HAS_SPLIT_INDEX) != 0) op.splitIndex(in.zigzag());
+            if ((flags & HAS_CONTENT) != 0) op.content(in.string());
+            op.position((int) in.zigzag());
+            op.length((int) in.zigzag());
+            if ((flags & HAS_CLIENT_ID) != 0) op.clientId(in.interned());
+            if ((flags & HAS_TIMESTAMP) != 0) {
+                prevMillis += in.zigzag();
+                op.timestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(prevMillis), ZoneId.systemDefault()));
+            }
+            if ((flags & HAS_REVISION) != 0) {
+                prevRevision += in.zigzag();
+                op.revision(prevRevision);
+            }
+            ops.add(op.build());
+        }
+        return ops;
+    }
+
+    // 라인마다 [lineID 차이][content][lock clientID 번호 + 1, 없으면 0][lastEdited 차이]
+    @Override
+    public String encodeLines(List<TextLine> lines) {
+        Writer out = new Writer();
+        out.varint(VERSION);
+        out.varint(lines.size());
+        long prevLineId = 0;
+        long prevMillis = 0;
+        for (TextLine line : lines) {
+            out.zigzag(line.getLineID() - prevLineId);
+            prevLineId = line.getLineID();
+            out.string(line.getContent());
+            if (line.isLocked()) {
+                out.varint(1);
+                out.interned(line.getLockClientID());
+            } else {
+                out.varint(0);
+            }
+            out.zigzag(line.getLastEditedMillis() - prevMillis);
+            prevMillis = line.getLastEditedMillis();
+        }
+        return out.finish();
+    }
+
+    @Override
+    public void writeLines(List<TextLine> lines, StringBuilder out) {
+        out.append(encodeLines(lines));
+    }
+
+    @Override
+    public List<TextLine> decodeLines(String payload) {
+        Reader in = new Reader(payload);
+        in.version();
+        int count = in.varint();
+        List<TextLine> lines = new ArrayList<>(count);
+        long prevLineId = 0;
+        long prevMillis = 0;
+        for (int i = 0; i < count; i++) {
+            prevLineId += in.zigzag();
+            String content = in.string();
+            String lockClientID = in.varint() != 0 ? in.interned() : null;
+            prevMillis += in.zigzag();
+            lines.add(TextLine.restore(prevLineId, content, lockClientID, prevMillis));
+        }
+        return lines;
+    }
+
+    /**
+     * 문자열 레코드 [code unit 수][code unit varint...]를 한 번에 만듦 (한 byte씩 쓰지 않도록)
+     */
+    static byte[] encodeString(String s) {
+        int size = varintSize(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            size += varintSize(s.charAt(i));
+        }
+        byte[] bytes = new byte[size];
+        int pos = putVarint(bytes, 0, s.length());
+        for (int i = 0; i < s.length(); i++) {
+            pos = putVarint(bytes, pos, s.charAt(i));
+        }
+        return bytes;
+    }
+
+    private static int varintSize(int v) {
+        return v < 1 << 7 ? 1 : v < 1 << 14 ? 2 : v < 1 << 21 ? 3 : v < 1 << 28 ? 4 : 5;
+    }
+
+    private static int putVarint(byte[] bytes, int pos, int v) {
+        while ((v & ~0x7F) != 0) {
+            bytes[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        bytes[pos++] = (byte) v;
+        return pos;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static final class Writer {
+        private final ByteArrayOutputStream buf = new ByteArrayOutputStream(64);
+        private final Map<String, Integer> table = new HashMap<>();
+
+        void varint(long v) {
+            while ((v & ~0x7FL) != 0) {
+                buf.write((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            buf.write((int) v);
+        }
+
+        void zigzag(long v) {
+            varint((v << 1) ^ (v >> 63));
+        }
+
+        void string(String s) {
+            byte[] bytes = encodeString(s);
+            buf.write(bytes, 0, bytes.length);
+        }
+
+        // 이미 나온 문자열이면 번호만, 처음이면 테이블 크기(=새 번호) 뒤에 문자열
+        void interned(String s) {
+            Integer index = table.get(s);
+            if (index != null) {
+                varint(index);
+                return;
+            }
+            varint(table.size());
+            table.put(s, table.size());
+            string(s);
+        }
+
+        String finish() {
+            return PREFIX + Base64.getEncoder().encodeToString(buf.toByteArray());
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private final List<String> table = new ArrayList<>();
+        private int pos = 0;
+
+        Reader(String payload) {
+            if (payload.isEmpty() || payload.charAt(0) != PREFIX) {
+                throw new IllegalArgumentException("not a binary frame");
+            }
+            this.data = Base64.getDecoder().decode(payload.substring(1));
+        }
+
+        void version() {
+            int version = varint();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("unsupported binary frame version: " + version);
+            }
+        }
+
+        long varlong() {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = data[pos++];
+                v |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return v;
+            }
+            throw new IllegalArgumentException("malformed varint");
+        }
+
+        int varint() {
+            return (int) varlong();
+        }
+
+        long zigzag() {
+            long v = varlong();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        String string() {
+            int length = varint();
+            if (length > data.length - pos) {
+                throw new IllegalArgumentException("malformed string length: " + length);
+            }
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) varint();
+            }
+            return new String(chars);
+        }
+
+        String interned() {
+            int index = varint();
+            if (index < table.size()) return table.get(index);
+            String s = string();
+            table.add(s);
+            return s;
+        }
+    }
+}
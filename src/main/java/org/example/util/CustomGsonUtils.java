@@ -1,26 +1,30 @@
 package org.example.util;
 
 import com.google.gson.*;
+import editor.model.TextLine;
 
 import java.time.LocalDateTime;
 
 public class CustomGsonUtils {
+    // Gson은 생성 후 thread-safe이므로 하나를 만들어 공유
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(LocalDateTime.class, new JsonSerializer<LocalDateTime>() {
+                @Override
+                public JsonElement serialize(LocalDateTime src, java.lang.reflect.Type typeOfSrc, JsonSerializationContext context) {
+                    return new JsonPrimitive(src.toString()); // ISO-8601 형식
+                }
+            })
+            .registerTypeAdapter(LocalDateTime.class, new JsonDeserializer<LocalDateTime>() {
+                @Override
+                public LocalDateTime deserialize(JsonElement json, java.lang.reflect.Type typeOfT, JsonDeserializationContext context)
+                        throws JsonParseException {
+                    return LocalDateTime.parse(json.getAsString());
+                }
+            })
+            .registerTypeAdapter(TextLine.class, new TextLineTypeAdapter())
+            .create();
+
     public static Gson CustomGson() {
-        Gson gson = new GsonBuilder()
-                .registerTypeAdapter(LocalDateTime.class, new JsonSerializer<LocalDateTime>() {
-                    @Override
-                    public JsonElement serialize(LocalDateTime src, java.lang.reflect.Type typeOfSrc, JsonSerializationContext context) {
-                        return new JsonPrimitive(src.toString()); // ISO-8601 형식
-                    }
-                })
-                .registerTypeAdapter(LocalDateTime.class, new JsonDeserializer<LocalDateTime>() {
-                    @Override
-                    public LocalDateTime deserialize(JsonElement json, java.lang.reflect.Type typeOfT, JsonDeserializationContext context)
-                            throws JsonParseException {
-                        return LocalDateTime.parse(json.getAsString());
-                    }
-                })
-                .create();
-        return gson;
+        return GSON;
     }
 }
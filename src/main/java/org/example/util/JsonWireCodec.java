@@ -0,0 +1,132 @@
+package org.example.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
+import editor.model.TextLine;
+import org.example.dto.EventContent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * 기존 JSON 형식 (연산은 Jackson, 문서 내용은 Gson)
+ * 연산이 하나면 EventContent 객체, 여러 개면 배열
+ * 문서 내용은 라인마다 TextLineTypeAdapter로 스레드별 재사용 버퍼에 바로 기록 (List → JsonElement 트리를 만들지 않음)
+ */
+public class JsonWireCodec implements WireCodec {
+    private static final Type LINES_TYPE = new TypeToken<List<TextLine>>(){}.getType();
+    // 이보다 커진 버퍼는 스레드에 남겨두지 않음
+    private static final int MAX_RETAINED_CHARS = 4 << 20;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(8192));
+
+    // ObjectMapper는 설정 후 thread-safe이므로 프로세스 전체에서 공유 (WireCodecs.objectMapper())
+    static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final ObjectMapper objectMapper = OBJECT_MAPPER;
+    private final CollectionType opsType = objectMapper.getTypeFactory().constructCollectionType(List.class, EventContent.class);
+    private final Gson gson = CustomGsonUtils.CustomGson();
+    private final TextLineTypeAdapter lineAdapter = new TextLineTypeAdapter();
+
+    @Override
+    public String name() {
+        return "json";
+    }
+
+    @Override
+    public String encodeOps(List<EventContent> ops) {
+        try {
+            return ops.size() == 1 ? objectMapper.writeValueAsString(ops.get(0)) : objectMapper.writeValueAsString(ops);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public List<EventContent> decodeOps(String frame) {
+        try {
+            if (frame.startsWith("[")) {
+                return objectMapper.readValue(frame, opsType);
+            }
+            return List.of(objectMapper.readValue(frame, EventContent.class));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("invalid op frame", e);
+        }
+    }
+
+    @Override
+    public String encodeLines(List<TextLine> lines) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        writeLines(lines, buffer);
+        String json = buffer.toString();
+        if (buffer.capacity() > MAX_RETAINED_CHARS) {
+            BUFFER.remove();
+        }
+        return json;
+    }
+
+    @Override
+    public void writeLines(List<TextLine> lines, StringBuilder out) {
+        try {
+            JsonWriter writer = gson.newJsonWriter(new StringBuilderWriter(out));
+            writer.beginArray();
+            for (TextLine line : lines) {
+                lineAdapter.write(writer, line);
+            }
+            writer.endArray();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public List<TextLine> decodeLines(String payload) {
+        return gson.fromJson(payload, LINES_TYPE);
+    }
+
+    // StringBuilder에 바로 쓰는 Writer (StringWriter의 동기화/복사 없이)
+    private static final class StringBuilderWriter extends Writer {
+        private final StringBuilder out;
+
+        StringBuilderWriter(StringBuilder out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            out.append(cbuf, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            out.append(str, off, off + len);
+        }
+
+        @Override
+        public void write(int c) {
+            out.append((char) c);
+        }
+
+        @Override
+        public Writer append(CharSequence csq) {
+            out.append(csq);
+            return this;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package org.example.util;
+
+import editor.model.TextLine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * 큰 문서 내용을 압축해서 고정 크기 조각으로 나눠 보내고 받는 스트림
+ * 문서 전체를 하나의 문자열로 만들지 않고 라인 단위로 바로 압축 → 조각이 찰 때마다 전송하므로
+ * 보내는 쪽은 조각 하나, 받는 쪽은 아직 해석하지 못한 조각 일부만 메모리에 둠
+ * 압축 전 형식 : [라인 수] + 라인마다 BinaryWireCodec 라인 형식과 같은 레코드
+ *               (lineID 차이, content, lock clientID 번호 + 1 또는 0, lastEdited 차이)
+ *               문자열도 BinaryWireCodec과 같은 code unit varint 형식 (짝이 없는 surrogate 보존)
+ */
+public final class SnapshotStream {
+    public static final int DEFAULT_CHUNK_BYTES = Integer.getInteger("editor.snapshot.chunk", 16 * 1024);
+
+    private SnapshotStream() {
+    }
+
+    /**
+     * 라인을 순서대로 받아 압축하고, 조각이 찰 때마다 sink로 넘김 (close 시 남은 조각)
+     */
+    public static final class Writer implements Closeable {
+        private final ChunkOutputStream chunks;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final DeflaterOutputStream out;
+        private final Map<String, Integer> table = new HashMap<>();
+        private long prevLineId = 0;
+        private long prevMillis = 0;
+
+        public Writer(int lineCount, int chunkBytes, Consumer<byte[]> sink) {
+            this.chunks = new ChunkOutputStream(chunkBytes, sink);
+            this.out = new DeflaterOutputStream(chunks, deflater, 8192);
+            varint(lineCount);
+        }
+
+        public void write(TextLine line) {
+            zigzag(line.getLineID() - prevLineId);
+            prevLineId = line.getLineID();
+            string(line.getContent());
+            if (line.isLocked()) {
+                String clientID = line.getLockClientID();
+                Integer index = table.get(clientID);
+                if (index != null) {
+                    varint(index + 1L);
+                } else {
+                    varint(table.size() + 1L);
+                    table.put(clientID, table.size());
+                    string(clientID);
+                }
+            } else {
+                varint(0);
+            }
+            zigzag(line.getLastEditedMillis() - prevMillis);
+            prevMillis = line.getLastEditedMillis();
+        }
+
+        @Override
+        public void close() {
+            try {
+                out.finish();
+                chunks.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                deflater.end();
+            }
+        }
+
+        private void varint(long v) {
+            try {
+                while ((v & ~0x7FL) != 0) {
+                    out.write((int) ((v & 0x7F) | 0x80));
+                    v >>>= 7;
+                }
+                out.write((int) v);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void zigzag(long v) {
+            varint((v << 1) ^ (v >> 63));
+        }
+
+        private void string(String s) {
+            byte[] bytes = BinaryWireCodec.encodeString(s);
+            try {
+                out.write(bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * 조각을 받는 대로 압축을 풀고 완성된 라인 레코드부터 TextLine으로 복원
+     */
+    public static final class Reader implements Closeable {
+        private final Inflater inflater = new Inflater();
+        private final List<TextLine> lines = new ArrayList<>();
+        private final List<String> table = new ArrayList<>();
+        private byte[] buf = new byte[8192];
+        private int start = 0; // 아직 해석하지 않은 첫 바이트
+        private int end = 0;
+        private int pos;
+        private int lineCount = -1;
+        private long prevLineId = 0;
+        private long prevMillis = 0;
+
+        public void feed(byte[] chunk) {
+            if (isComplete()) return; // 라인을 다 받은 뒤의 압축 종료 조각
+            inflater.setInput(chunk);
+            try {
+                while (!isComplete() && !inflater.needsInput() && !inflater.finished()) {
+                    if (end == buf.length) {
+                        compact();
+                    }
+                    end += inflater.inflate(buf, end, buf.length - end);
+                    parse();
+                }
+            } catch (DataFormatException e) {
+                throw new IllegalArgumentException("corrupted snapshot chunk", e);
+            }
+        }
+
+        public boolean isComplete() {
+            return lineCount >= 0 && lines.size() == lineCount;
+        }
+
+        public int received() {
+            return lines.size();
+        }
+
+        public List<TextLine> lines() {
+            return lines;
+        }
+
+        @Override
+        public void close() {
+            inflater.end();
+        }
+
+        // 완성된 레코드만 해석, 중간에 바이트가 모자라면 레코드 시작으로 되돌림
+        private void parse() {
+            while (!isComplete()) {
+                pos = start;
+                int tableSize = table.size();
+                try {
+                    if (lineCount < 0) {
+                        lineCount = (int) varlong();
+                    } else {
+                        long lineId = prevLineId + zigzag();
+                        String content = string();
+                        long lock = varlong();
+                        String lockClientID = null;
+                        if (lock != 0) {
+                            lockClientID = lock <= table.size() ? table.get((int) lock - 1) : addToTable();
+                        }
+                        long millis = prevMillis + zigzag();
+                        lines.add(TextLine.restore(lineId, content, lockClientID, millis));
+                        prevLineId = lineId;
+                        prevMillis = millis;
+                    }
+                } catch (IndexOutOfBoundsException underflow) {
+                    while (table.size() > tableSize) {
+                        table.remove(table.size() - 1);
+                    }
+                    return;
+                }
+                start = pos;
+            }
+        }
+
+        // 해석이 끝난 앞부분을 버리고, 남은 레코드가 버퍼보다 크면 버퍼를 키움
+        private void compact() {
+            int remaining = end - start;
+            byte[] target = remaining * 2 > buf.length ? new byte[buf.length * 2] : buf;
+            System.arraycopy(buf, start, target, 0, remaining);
+            buf = target;
+            start = 0;
+            end = remaining;
+        }
+
+        private String addToTable() {
+            String s = string();
+            table.add(s);
+            return s;
+        }
+
+        private long varlong() {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (pos >= end) throw new IndexOutOfBoundsException();
+                byte b = buf[pos++];
+                v |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return v;
+            }
+            throw new IllegalArgumentException("malformed varint");
+        }
+
+        private long zigzag() {
+            long v = varlong();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        // code unit마다 1 byte 이상이므로 모자란 레코드는 글자를 읽기 전에 걸러냄
+        private String string() {
+            int length = (int) varlong();
+            if (pos + length > end) throw new IndexOutOfBoundsException();
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) varlong();
+            }
+            return new String(chars);
+        }
+    }
+
+    // chunkBytes가 찰 때마다 sink로 넘기는 OutputStream
+    private static final class ChunkOutputStream extends OutputStream {
+        private final ByteArrayOutputStream current;
+        private final int chunkBytes;
+        private final Consumer<byte[]> sink;
+
+        ChunkOutputStream(int chunkBytes, Consumer<byte[]> sink) {
+            this.current = new ByteArrayOutputStream(chunkBytes);
+            this.chunkBytes = chunkBytes;
+            this.sink = sink;
+        }
+
+        @Override
+        public void write(int b) {
+            current.write(b);
+            if (current.size() >= chunkBytes) {
+                emit();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            while (len > 0) {
+                int n = Math.min(len, chunkBytes - current.size());
+                current.write(b, off, n);
+                off += n;
+                len -= n;
+                if (current.size() >= chunkBytes) {
+                    emit();
+                }
+            }
+        }
+
+        // 마지막 조각은 비어 있어도 보냄 (받는 쪽이 끝을 알 수 있도록)
+        @Override
+        public void close() {
+            emit();
+        }
+
+        private void emit() {
+            sink.accept(current.toByteArray());
+            current.reset();
+        }
+    }
+}
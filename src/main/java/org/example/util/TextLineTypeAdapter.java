@@ -0,0 +1,74 @@
+package org.example.util;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import editor.model.TextLine;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * TextLine JSON 변환
+ * TextLine 내부 필드(byte[]/char[] 내용, lock handle, epoch millis)는 프로세스 전용 표현이므로
+ * 기존과 같은 {lineID, content, lock, lockClientID, lastEdited} 형식으로 주고받음
+ */
+public class TextLineTypeAdapter extends TypeAdapter<TextLine> {
+    // ZoneId.systemDefault()는 호출마다 TimeZone을 복제하므로 라인마다 부르지 않음
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    @Override
+    public void write(JsonWriter out, TextLine line) throws IOException {
+        if (line == null) {
+            out.nullValue();
+            return;
+        }
+        boolean locked = line.isLocked();
+        out.beginObject();
+        out.name("lineID").value(line.getLineID());
+        out.name("content").value(line.getContent());
+        out.name("lock").value(locked);
+        if (locked) {
+            out.name("lockClientID").value(line.getLockClientID());
+        }
+        out.name("lastEdited").value(LocalDateTime.ofInstant(Instant.ofEpochMilli(line.getLastEditedMillis()), ZONE).toString()); // ISO-8601 형식
+        out.endObject();
+    }
+
+    @Override
+    public TextLine read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        long lineID = 0;
+        String content = "";
+        boolean lock = false;
+        String lockClientID = null;
+        long lastEditedMillis = System.currentTimeMillis();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "lineID" -> lineID = in.nextLong();
+                case "content" -> content = in.nextString();
+                case "lock" -> lock = in.nextBoolean();
+                case "lockClientID" -> lockClientID = in.nextString();
+                case "lastEdited" -> lastEditedMillis = LocalDateTime.parse(in.nextString())
+                        .atZone(ZONE).toInstant().toEpochMilli();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return TextLine.restore(lineID, content, lock ? (lockClientID == null ? "" : lockClientID) : null, lastEditedMillis);
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.util;
+
+import editor.model.TextLine;
+import org.example.dto.EventContent;
+
+import java.util.List;
+
+/**
+ * client-서버 사이 편집 연산 / 문서 내용 직렬화 방식
+ * 서버는 로그인 후 client가 알려준 codec 중 하나를 골라 사용 (WireCodecs 참고)
+ */
+public interface WireCodec {
+    String name();
+
+    // 연산 프레임 (CMDummyEvent dummyInfo, EDIT_BATCH_REQUEST의 ops)
+    String encodeOps(List<EventContent> ops);
+
+    List<EventContent> decodeOps(String frame);
+
+    // 문서 내용 (PUSH_DOCUMENT_MODEL의 serializedContents)
+    String encodeLines(List<TextLine> lines);
+
+    // 중간 문자열 없이 out 뒤에 바로 기록 (재사용하는 버퍼에 쓸 때)
+    void writeLines(List<TextLine> lines, StringBuilder out);
+
+    List<TextLine> decodeLines(String payload);
+}
@@ -0,0 +1,40 @@
+package org.example.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 사용할 수 있는 codec 목록과 선택 (모든 codec / mapper는 thread-safe라 프로세스 전체에서 공유)
+ * 프레임 첫 글자로 형식을 구분하므로 받는 쪽은 협상 결과와 상관없이 어느 형식이든 읽을 수 있음
+ */
+public final class WireCodecs {
+    public static final WireCodec JSON = new JsonWireCodec();
+    public static final WireCodec BINARY = new BinaryWireCodec();
+    // client가 로그인 후 서버에 알려주는 지원 목록 (선호 순서)
+    public static final String SUPPORTED = BINARY.name() + "," + JSON.name();
+
+    private WireCodecs() {
+    }
+
+    // 연산 외의 JSON 필드(문서 목록 등)에 쓰는 공유 ObjectMapper, 메시지마다 새로 만들지 않음
+    public static ObjectMapper objectMapper() {
+        return JsonWireCodec.OBJECT_MAPPER;
+    }
+
+    /**
+     * client가 보낸 지원 목록 중 서버도 아는 첫 codec (없으면 JSON)
+     */
+    public static WireCodec negotiate(String offered) {
+        if (offered != null) {
+            for (String name : offered.split(",")) {
+                if (BINARY.name().equals(name.trim())) return BINARY;
+                if (JSON.name().equals(name.trim())) return JSON;
+            }
+        }
+        return JSON;
+    }
+
+    // 받은 프레임의 형식
+    public static WireCodec detect(String payload) {
+        return !payload.isEmpty() && payload.charAt(0) == BinaryWireCodec.PREFIX ? BINARY : JSON;
+    }
+}
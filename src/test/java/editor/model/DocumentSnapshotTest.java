@@ -0,0 +1,75 @@
+package editor.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DocumentSnapshotTest {
+    private static final int LINES = 2_000;
+
+    @Test
+    void snapshotKeepsItsContentAfterLaterEdits() {
+        DocumentModel model = newModel();
+        DocumentSnapshot snapshot = model.snapshot();
+        List<String> before = contents(snapshot.lines());
+
+        editEveryTenthLine(model, "changed");
+        model.insertLineAt(model.getLineAt(5).getLineID(), "inserted", false, "A");
+        model.deleteLineAt(model.getLineAt(100).getLineID(), "A");
+
+        assertEquals(before, contents(snapshot.lines()));
+        assertEquals(LINES, snapshot.getLineCount());
+    }
+
+    @Test
+    void snapshotDoesNotKeepLaterGenerationsReachable() {
+        DocumentModel model = newModel();
+        DocumentSnapshot snapshot = model.snapshot();
+
+        // 스냅샷 이후 세대 : 고친 라인은 모두 새로 복사된 노드/라인
+        editEveryTenthLine(model, "gen1");
+        model.snapshot();
+        editEveryTenthLine(model, "gen2");
+
+        List<WeakReference<TextLine>> later = new ArrayList<>();
+        for (int i = 0; i < LINES; i += 10) {
+            later.add(new WeakReference<>(model.getLineAt(i)));
+        }
+        model = null; // 모델을 버리고 처음 스냅샷만 들고 있음
+
+        for (int i = 0; i < 20 && later.stream().anyMatch(ref -> ref.get() != null); i++) {
+            System.gc();
+        }
+        for (WeakReference<TextLine> ref : later) {
+            assertNull(ref.get(), "snapshot keeps a later generation line reachable");
+        }
+        assertEquals(LINES, snapshot.getLineCount());
+        assertEquals("line 10", snapshot.lines().get(10).getContent());
+    }
+
+    private static DocumentModel newModel() {
+        DocumentModel model = new DocumentModel();
+        for (int i = 1; i < LINES; i++) model.addNewLine();
+        for (int i = 0; i < LINES; i++) {
+            model.forceUpdateContent(model.getLineAt(i).getLineID(), "line " + i);
+        }
+        return model;
+    }
+
+    private static void editEveryTenthLine(DocumentModel model, String content) {
+        for (int i = 0; i < LINES; i += 10) {
+            model.forceUpdateContent(model.getLineAt(i).getLineID(), content + " " + i);
+        }
+    }
+
+    private static List<String> contents(List<TextLine> lines) {
+        List<String> result = new ArrayList<>();
+        for (TextLine line : lines) result.add(line.getContent());
+        return result;
+    }
+}
@@ -0,0 +1,129 @@
+package editor.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LineSequenceTest {
+    private static final int STEPS = 3_000;
+
+    /**
+     * 임의의 삽입/삭제/내용 변경을 ArrayList 기준 모델과 같이 적용하면서
+     * index 접근, lineID → 위치, 라인 ↔ 글자 offset 변환과 중간에 찍은 스냅샷을 매번 비교
+     */
+    @Test
+    void matchesArrayListUnderRandomEditsAndKeepsSnapshots() {
+        Random random = new Random(42);
+        LineSequence sequence = new LineSequence();
+        List<Long> ids = new ArrayList<>();
+        List<String> contents = new ArrayList<>();
+        List<LineSequence.Node> snapshots = new ArrayList<>();
+        List<List<String>> snapshotContents = new ArrayList<>();
+        long nextId = 1;
+
+        for (int step = 0; step < STEPS; step++) {
+            int action = random.nextInt(10);
+            if (ids.isEmpty() || action < 4) {
+                int i = random.nextInt(ids.size() + 1);
+                String content = randomText(random);
+                sequence.add(i, new TextLine(nextId, content));
+                ids.add(i, nextId++);
+                contents.add(i, content);
+            } else if (action < 6) {
+                int i = random.nextInt(ids.size());
+                assertEquals((long) ids.remove(i), sequence.remove(i).getLineID());
+                contents.remove(i);
+            } else if (action < 9) {
+                int i = random.nextInt(ids.size());
+                TextLine line = sequence.getMutable(ids.get(i));
+                int pos = random.nextInt(line.length() + 1);
+                String inserted = randomText(random);
+                line.insertText(pos, inserted);
+                sequence.refreshLength(ids.get(i));
+                contents.set(i, contents.get(i).substring(0, pos) + inserted + contents.get(i).substring(pos));
+            } else {
+                snapshots.add(sequence.snapshot());
+                snapshotContents.add(new ArrayList<>(contents));
+            }
+            assertMatches(sequence, ids, contents);
+        }
+        for (int s = 0; s < snapshots.size(); s++) {
+            assertEquals(snapshotContents.get(s), contents(LineSequence.iterator(snapshots.get(s))), "snapshot " + s);
+        }
+    }
+
+    @Test
+    void editAfterSnapshotCopiesOnlyThePath() {
+        LineSequence sequence = new LineSequence();
+        for (long id = 1; id <= 100; id++) {
+            sequence.addLast(new TextLine(id, "line " + id));
+        }
+        LineSequence.Node snapshot = sequence.snapshot();
+        TextLine before = sequence.getById(50);
+        assertTrue(sequence.isShared(50));
+
+        TextLine mutable = sequence.getMutable(50);
+        mutable.setContent("changed");
+        sequence.refreshLength(50);
+
+        // 고친 라인만 새 객체, 나머지 라인은 스냅샷과 같은 객체를 공유
+        assertFalse(sequence.isShared(50));
+        assertTrue(before != mutable);
+        assertEquals("line 50", LineSequence.get(snapshot, 49).getContent());
+        assertEquals("changed", sequence.get(49).getContent());
+        assertTrue(LineSequence.get(snapshot, 10) == sequence.get(10));
+        assertTrue(sequence.isShared(10));
+    }
+
+    @Test
+    void emptySequence() {
+        LineSequence sequence = new LineSequence();
+        assertEquals(0, sequence.size());
+        assertEquals(0, sequence.textLength());
+        assertEquals(-1, sequence.indexAtOffset(0));
+        assertEquals(-1, sequence.indexOf(1));
+        assertNull(sequence.getById(1));
+    }
+
+    private static void assertMatches(LineSequence sequence, List<Long> ids, List<String> contents) {
+        assertEquals(ids.size(), sequence.size());
+        int offset = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            long id = ids.get(i);
+            assertEquals(id, sequence.get(i).getLineID());
+            assertEquals(contents.get(i), sequence.get(i).getContent());
+            assertEquals(i, sequence.indexOf(id));
+            assertEquals(offset, sequence.offsetOf(i));
+            // 라인 첫 글자와 줄바꿈 위치 모두 그 라인에 속함
+            assertEquals(i, sequence.indexAtOffset(offset));
+            assertEquals(i, sequence.indexAtOffset(offset + contents.get(i).length()));
+            offset += contents.get(i).length() + 1;
+        }
+        assertEquals(offset, sequence.offsetOf(ids.size()));
+        assertEquals(Math.max(0, offset - 1), sequence.textLength());
+        assertEquals(contents, contents(sequence.iterator()));
+    }
+
+    private static List<String> contents(Iterator<TextLine> lines) {
+        List<String> result = new ArrayList<>();
+        lines.forEachRemaining(line -> result.add(line.getContent()));
+        return result;
+    }
+
+    private static String randomText(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int length = random.nextInt(6);
+        for (int i = 0; i < length; i++) {
+            sb.append(random.nextInt(4) == 0 ? '가' : (char) ('a' + random.nextInt(26)));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,58 @@
+package editor.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RopeTest {
+
+    /**
+     * chunk 경계를 넘나드는 임의의 삽입/범위 삭제를 StringBuilder와 비교
+     * 이전 버전의 rope는 바뀌지 않아야 함 (스냅샷과 공유)
+     */
+    @Test
+    void matchesStringBuilderAndNeverChangesOlderVersions() {
+        Random random = new Random(7);
+        StringBuilder expected = new StringBuilder(text(random, 3 * Rope.MAX_CHUNK));
+        Rope rope = Rope.of(expected.toString());
+
+        for (int step = 0; step < 2_000; step++) {
+            Rope previous = rope;
+            String previousText = expected.toString();
+            if (expected.length() == 0 || random.nextInt(3) != 0) {
+                int pos = random.nextInt(expected.length() + 1);
+                // 대부분은 타이핑 크기, 가끔 chunk보다 긴 붙여넣기
+                String text = text(random, random.nextInt(20) == 0 ? Rope.MAX_CHUNK + 100 : 1 + random.nextInt(3));
+                rope = Rope.insert(rope, pos, text);
+                expected.insert(pos, text);
+            } else {
+                int start = random.nextInt(expected.length());
+                int end = Math.min(expected.length(), start + 1 + random.nextInt(random.nextInt(10) == 0 ? 2 * Rope.MAX_CHUNK : 3));
+                rope = Rope.delete(rope, start, end);
+                expected.delete(start, end);
+            }
+            assertEquals(expected.length(), Rope.length(rope));
+            assertEquals(expected.toString(), Rope.toString(rope));
+            assertEquals(previousText, Rope.toString(previous));
+        }
+    }
+
+    @Test
+    void emptyText() {
+        assertNull(Rope.of(""));
+        assertEquals("", Rope.toString(null));
+        assertEquals("abc", Rope.toString(Rope.insert(null, 0, "abc")));
+        assertNull(Rope.delete(Rope.of("abc"), 0, 3));
+    }
+
+    private static String text(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(26)));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,82 @@
+package editor.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 1M 라인 heap 사용량 비교 : 현재 TextLine vs 이전 필드 구성(String + boolean + String + LocalDateTime)
+ */
+class TextLineFootprintTest {
+    private static final int LINES = 1_000_000;
+
+    @Test
+    void asciiLinesUseAtMostSixtyPercentOfLegacyLayout() throws InterruptedException {
+        assertCompact(i -> "line " + i + " some text");
+    }
+
+    @Test
+    void hangulLinesUseAtMostSixtyPercentOfLegacyLayout() throws InterruptedException {
+        assertCompact(i -> "줄 " + i + " 한글 내용");
+    }
+
+    private static void assertCompact(IntFunction<String> content) throws InterruptedException {
+        double legacy = bytesPerLine(i -> {
+            LegacyTextLine line = new LegacyTextLine(i, content.apply(i));
+            if (i % 1000 == 0) line.acquireLock("client" + (i % 7));
+            return line;
+        });
+        double compact = bytesPerLine(i -> {
+            TextLine line = new TextLine(i, content.apply(i));
+            if (i % 1000 == 0) line.acquireLock("client" + (i % 7));
+            return line;
+        });
+        System.out.printf("%s: legacy %.1f bytes/line, TextLine %.1f bytes/line%n", content.apply(0), legacy, compact);
+        assertTrue(compact <= legacy * 0.6, "TextLine " + compact + " bytes/line vs legacy " + legacy);
+    }
+
+    // 라인 1M개를 들고 있을 때 늘어난 heap (리스트 참조 배열 제외)
+    private static double bytesPerLine(IntFunction<Object> factory) throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        long before = usedAfterGc(runtime);
+        List<Object> lines = new ArrayList<>(LINES);
+        for (int i = 0; i < LINES; i++) lines.add(factory.apply(i));
+        long after = usedAfterGc(runtime);
+        double perLine = (after - before) / (double) LINES - 4; // ArrayList 참조 (compressed oops)
+        if (lines.size() != LINES) throw new IllegalStateException();
+        return perLine;
+    }
+
+    private static long usedAfterGc(Runtime runtime) throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // user-006 이전 TextLine의 필드 구성
+    private static final class LegacyTextLine {
+        private final long lineID;
+        private String content;
+        private boolean lock;
+        private String lockClientID;
+        private LocalDateTime lastEdited;
+
+        LegacyTextLine(long lineID, String content) {
+            this.lineID = lineID;
+            this.content = content;
+            this.lastEdited = LocalDateTime.now();
+        }
+
+        void acquireLock(String clientID) {
+            lock = true;
+            lockClientID = clientID;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.example;
+
+import editor.model.DocumentStorage;
+import org.example.dto.EventContent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DocumentRoomTest {
+    @TempDir
+    Path dir;
+    private DocumentRoom room;
+
+    @BeforeEach
+    void setUp() {
+        room = new DocumentRoom("room", "s", "g", dir.resolve("wal"), new DocumentStorage(dir.resolve("docs")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        room.close();
+    }
+
+    @Test
+    void opsSinceReturnsStampedOpsInOrder() {
+        List<EventContent> stamped = stamp(10);
+        assertEquals(10, room.getRevision());
+
+        List<EventContent> ops = room.opsSince(4);
+        assertEquals(7, ops.size());
+        for (int i = 0; i < ops.size(); i++) {
+            assertSame(stamped.get(3 + i), ops.get(i));
+            assertEquals(4 + i, ops.get(i).getRevision());
+        }
+        // 이미 최신이면 빈 목록
+        assertTrue(room.opsSince(11).isEmpty());
+        // revision 0(아무것도 받지 않음)은 전체 문서가 필요
+        assertNull(room.opsSince(0));
+    }
+
+    @Test
+    void opsOlderThanTheRingNeedAFullDocument() {
+        int total = DocumentRoom.HISTORY_SIZE + 100;
+        List<EventContent> stamped = stamp(total);
+
+        // 링을 한 바퀴 넘으면 덮어쓴 구간은 재전송 불가
+        assertNull(room.opsSince(total - DocumentRoom.HISTORY_SIZE));
+        List<EventContent> ops = room.opsSince(total - DocumentRoom.HISTORY_SIZE + 1);
+        assertEquals(DocumentRoom.HISTORY_SIZE, ops.size());
+        assertSame(stamped.get(total - DocumentRoom.HISTORY_SIZE), ops.get(0));
+        assertSame(stamped.get(total - 1), ops.get(ops.size() - 1));
+    }
+
+    @Test
+    void loadingADocumentDropsOlderHistory() throws InterruptedException {
+        stamp(5);
+        onRoomThread(() -> room.loadDocument("doc", room.getController().getDocumentModel().snapshot()));
+
+        // 새 문서에는 이전 연산을 적용할 수 없으므로 전체 문서부터 다시 받아야 함
+        assertNull(room.opsSince(3));
+        assertNull(room.opsSince(5));
+        stamp(2);
+        assertEquals(2, room.opsSince(6).size());
+    }
+
+    private List<EventContent> stamp(int count) {
+        List<EventContent> ops = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            EventContent op = EventContent.builder().type("insert_text").lineId(1L).content("a").build();
+            room.stamp(op);
+            ops.add(op);
+        }
+        return ops;
+    }
+
+    // 모델 / 로그 변경은 방 스레드에서 (복구가 끝난 뒤 실행됨)
+    private void onRoomThread(Runnable task) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        room.execute(() -> {
+            task.run();
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,73 @@
+package org.example;
+
+import editor.model.DocumentStorage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboundPipelineTest {
+
+    @Test
+    void slowSendInOneLaneDoesNotStallOtherRooms(@TempDir Path dir) throws InterruptedException {
+        DocumentStorage storage = new DocumentStorage(dir.resolve("docs"));
+        DocumentRoom slow = new DocumentRoom("room-0", "s0", "g", dir.resolve("slow"), storage);
+        DocumentRoom other = new DocumentRoom(keyInOtherLane(slow.getKey()), "s1", "g", dir.resolve("other"), storage);
+
+        CountDownLatch unblock = new CountDownLatch(1);
+        CountDownLatch delivered = new CountDownLatch(1);
+        try (OutboundPipeline pipeline = new OutboundPipeline()) {
+            pipeline.submit(slow, () -> "stuck", message -> await(unblock)); // 느린 client로 보내는 중
+            pipeline.submit(other, () -> "frame", message -> delivered.countDown());
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            unblock.countDown();
+        } finally {
+            slow.close();
+            other.close();
+        }
+    }
+
+    @Test
+    void messagesOfOneRoomKeepTheirOrder(@TempDir Path dir) throws InterruptedException {
+        DocumentRoom room = new DocumentRoom("room", "s", "g", dir.resolve("wal"), new DocumentStorage(dir.resolve("docs")));
+        List<Integer> sent = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        try (OutboundPipeline pipeline = new OutboundPipeline()) {
+            for (int i = 0; i < 3 * OutboundPipeline.QUEUE_CAPACITY; i++) { // 큐보다 많이 넘겨도 순서 유지
+                int n = i;
+                pipeline.submit(room, () -> n, sent::add);
+            }
+            pipeline.submit(room, () -> -1, message -> done.countDown());
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        } finally {
+            room.close();
+        }
+        assertEquals(3 * OutboundPipeline.QUEUE_CAPACITY, sent.size());
+        for (int i = 0; i < sent.size(); i++) {
+            assertEquals(i, sent.get(i));
+        }
+    }
+
+    private static String keyInOtherLane(String key) {
+        int lane = Math.floorMod(key.hashCode(), OutboundPipeline.LANES);
+        for (int i = 1; ; i++) {
+            String candidate = "room-" + i;
+            if (Math.floorMod(candidate.hashCode(), OutboundPipeline.LANES) != lane) return candidate;
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
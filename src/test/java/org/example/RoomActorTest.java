@@ -0,0 +1,55 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoomActorTest {
+
+    @Test
+    void fullInboxRejectsRequestsWithoutBlockingAndKeepsOrder() throws InterruptedException {
+        RoomActor actor = new RoomActor("test");
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        actor.execute(() -> {
+            started.countDown();
+            await(release);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // 방 스레드가 막혀 있는 동안 큐를 채움
+        List<Integer> ran = new ArrayList<>();
+        for (int i = 0; i < RoomActor.QUEUE_CAPACITY; i++) {
+            int n = i;
+            assertTrue(actor.offer(() -> ran.add(n)));
+        }
+        assertFalse(actor.offer(() -> ran.add(-1)));
+
+        // 제어 작업은 가득 차 있어도 들어감
+        CountDownLatch done = new CountDownLatch(1);
+        actor.execute(done::countDown);
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertEquals(RoomActor.QUEUE_CAPACITY, ran.size());
+        for (int i = 0; i < ran.size(); i++) {
+            assertEquals(i, ran.get(i));
+        }
+        actor.close();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.example;
+
+import editor.model.DocumentModel;
+import editor.model.DocumentSnapshot;
+import org.example.dto.EventContent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class WriteAheadLogTest {
+
+    @Test
+    void recoversCheckpointThenLockRecordsThenLaterOps(@TempDir Path dir) {
+        DocumentModel model = new DocumentModel();
+        model.forceUpdateContent(model.getLineAt(0).getLineID(), "checkpointed");
+
+        try (WriteAheadLog log = new WriteAheadLog(dir)) {
+            assertNull(log.loadCheckpoint());
+            assertEquals(0, log.replay(op -> { }));
+            for (int i = 0; i < 10; i++) log.append(op("before-" + i));
+            // checkpoint는 writer 스레드에서 처리되고, 그 사이의 append는 새 로그에 이어서 들어가야 함
+            log.checkpoint(model.snapshot(), List.of(op("lock")));
+            for (int i = 0; i < 5; i++) log.append(op("after-" + i));
+            log.sync();
+            assertNull(log.getFailure());
+        }
+
+        List<String> replayed = new ArrayList<>();
+        try (WriteAheadLog log = new WriteAheadLog(dir)) {
+            DocumentSnapshot checkpoint = log.loadCheckpoint();
+            assertNotNull(checkpoint);
+            assertEquals("checkpointed", checkpoint.lines().iterator().next().getContent());
+            log.replay(op -> replayed.add(op.getContent()));
+        }
+        assertEquals(List.of("lock", "after-0", "after-1", "after-2", "after-3", "after-4"), replayed);
+    }
+
+    private static EventContent op(String content) {
+        return EventContent.builder().type("test").content(content).build();
+    }
+}
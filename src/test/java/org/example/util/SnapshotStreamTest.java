@@ -0,0 +1,110 @@
+package org.example.util;
+
+import editor.model.TextLine;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotStreamTest {
+    private static final int CHUNK_BYTES = 512;
+
+    @Test
+    void chunksHaveFixedSizeAndRestoreAllLines() {
+        List<TextLine> lines = randomLines(new Random(3), 5_000);
+        List<byte[]> chunks = write(lines, CHUNK_BYTES);
+
+        // 마지막 조각만 작을 수 있음
+        assertTrue(chunks.size() > 2);
+        for (int i = 0; i < chunks.size() - 1; i++) {
+            assertEquals(CHUNK_BYTES, chunks.get(i).length);
+        }
+        assertTrue(chunks.get(chunks.size() - 1).length <= CHUNK_BYTES);
+
+        try (SnapshotStream.Reader reader = new SnapshotStream.Reader()) {
+            int half = chunks.size() / 2;
+            for (int i = 0; i < half; i++) {
+                reader.feed(chunks.get(i));
+            }
+            // 받은 조각만큼 라인을 바로 복원 (전체를 기다리지 않음)
+            assertFalse(reader.isComplete());
+            assertTrue(reader.received() > 0 && reader.received() < lines.size());
+            for (int i = half; i < chunks.size(); i++) {
+                reader.feed(chunks.get(i));
+            }
+            assertTrue(reader.isComplete());
+            WireCodecTest.assertLinesEqual(lines, reader.lines(), "snapshot stream");
+        }
+    }
+
+    @Test
+    void lineLongerThanChunkSpansSeveralChunks() {
+        List<TextLine> lines = List.of(
+                TextLine.restore(1, "short", "alice", 1_000L),
+                TextLine.restore(2, randomText(new Random(5), 20 * CHUNK_BYTES), null, 2_000L),
+                TextLine.restore(3, "", "alice", 3_000L));
+        List<byte[]> chunks = write(lines, CHUNK_BYTES);
+        assertTrue(chunks.size() > 2);
+
+        try (SnapshotStream.Reader reader = new SnapshotStream.Reader()) {
+            chunks.forEach(reader::feed);
+            assertTrue(reader.isComplete());
+            WireCodecTest.assertLinesEqual(lines, reader.lines(), "long line");
+        }
+    }
+
+    @Test
+    void loneSurrogatesArePreserved() {
+        List<TextLine> lines = List.of(
+                TextLine.restore(1, "a\uD800b", "\uDC00", 1_000L),
+                TextLine.restore(2, "\uD83D\uDE00\uD83D", null, 2_000L));
+        try (SnapshotStream.Reader reader = new SnapshotStream.Reader()) {
+            write(lines, CHUNK_BYTES).forEach(reader::feed);
+            WireCodecTest.assertLinesEqual(lines, reader.lines(), "surrogates");
+        }
+    }
+
+    @Test
+    void emptyDocument() {
+        List<byte[]> chunks = write(List.of(), CHUNK_BYTES);
+        assertEquals(1, chunks.size());
+        try (SnapshotStream.Reader reader = new SnapshotStream.Reader()) {
+            reader.feed(chunks.get(0));
+            assertTrue(reader.isComplete());
+            assertEquals(0, reader.received());
+        }
+    }
+
+    private static List<byte[]> write(List<TextLine> lines, int chunkBytes) {
+        List<byte[]> chunks = new ArrayList<>();
+        try (SnapshotStream.Writer writer = new SnapshotStream.Writer(lines.size(), chunkBytes, chunks::add)) {
+            lines.forEach(writer::write);
+        }
+        return chunks;
+    }
+
+    // 압축이 잘 안 되도록 임의의 내용
+    private static List<TextLine> randomLines(Random random, int count) {
+        List<TextLine> lines = new ArrayList<>(count);
+        long millis = 1_700_000_000_000L;
+        for (int i = 0; i < count; i++) {
+            String lock = random.nextInt(10) == 0 ? "client" + random.nextInt(4) : null;
+            millis += random.nextInt(10_000);
+            lines.add(TextLine.restore(i + 1 + random.nextInt(3), randomText(random, random.nextInt(40)), lock, millis));
+        }
+        return lines;
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(random.nextInt(5) == 0 ? (char) ('가' + random.nextInt(1000)) : (char) ('a' + random.nextInt(26)));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.util;
+
+import editor.model.TextLine;
+import org.example.dto.EventContent;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class WireCodecTest {
+    private static final List<WireCodec> CODECS = List.of(WireCodecs.JSON, WireCodecs.BINARY);
+    // JSON 연산 형식은 초 단위까지만 보관
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 5, 1, 13, 20, 30);
+
+    @Test
+    void opsRoundTrip() {
+        List<EventContent> ops = List.of(
+                EventContent.builder().type("insert_text").lineId(12L).position(3).content("한글 abc").clientId("alice").revision(41).build(),
+                EventContent.builder().type("delete_text").lineId(7L).position(1).length(2).clientId("bob").revision(42).build(),
+                EventContent.builder().type("split_line").lineId(7L).splitIndex(4L).clientId("alice").timestamp(TIME).build(),
+                EventContent.builder().type("merge_line").lineId(9L).nextLineId(3L).content("").build(),
+                EventContent.builder().type("custom_type").content("😀 emoji").build());
+        for (WireCodec codec : CODECS) {
+            List<EventContent> decoded = codec.decodeOps(codec.encodeOps(ops));
+            assertEquals(ops.size(), decoded.size(), codec.name());
+            for (int i = 0; i < ops.size(); i++) {
+                assertOpEquals(ops.get(i), decoded.get(i), codec.name());
+            }
+        }
+    }
+
+    @Test
+    void singleOpRoundTrip() {
+        EventContent op = EventContent.builder().type("edit").lineId(5L).content("x").clientId("c").build();
+        for (WireCodec codec : CODECS) {
+            List<EventContent> decoded = codec.decodeOps(codec.encodeOps(List.of(op)));
+            assertEquals(1, decoded.size(), codec.name());
+            assertOpEquals(op, decoded.get(0), codec.name());
+        }
+    }
+
+    @Test
+    void linesRoundTrip() {
+        List<TextLine> lines = new ArrayList<>();
+        long millis = 1_700_000_000_000L;
+        for (int i = 0; i < 200; i++) {
+            String lock = i % 7 == 0 ? "client" + (i % 3) : null;
+            lines.add(TextLine.restore(i * 3L + 1, i % 5 == 0 ? "" : "line " + i + " 내용", lock, millis + i * 1_000L));
+        }
+        lines.add(TextLine.restore(10_000, "x".repeat(5_000), null, millis)); // rope로 보관되는 긴 라인
+        for (WireCodec codec : CODECS) {
+            assertLinesEqual(lines, codec.decodeLines(codec.encodeLines(lines)), codec.name());
+
+            StringBuilder out = new StringBuilder();
+            codec.writeLines(lines, out);
+            assertLinesEqual(lines, codec.decodeLines(out.toString()), codec.name());
+        }
+    }
+
+    // 붙여넣기나 IME 중간 상태에서 들어올 수 있는 짝이 없는 surrogate도 모든 codec에서 그대로 보존
+    @Test
+    void loneSurrogatesSurviveEveryCodec() {
+        String[] texts = {"a\uD800b", "\uDC00", "끝\uD83D", "\uD83D\uDE00 pair", "\u0000\u007F\u0080\u3FFF\u4000\uFFFF"};
+        for (WireCodec codec : CODECS) {
+            for (String text : texts) {
+                EventContent op = EventContent.builder().type("insert_text").lineId(1L).content(text).clientId(text).build();
+                assertOpEquals(op, codec.decodeOps(codec.encodeOps(List.of(op, op))).get(1), codec.name());
+
+                List<TextLine> lines = List.of(TextLine.restore(1, text, text, 1_000L));
+                assertLinesEqual(lines, codec.decodeLines(codec.encodeLines(lines)), codec.name());
+            }
+        }
+    }
+
+    @Test
+    void detectsFrameFormat() {
+        List<EventContent> ops = List.of(EventContent.builder().type("edit").lineId(1L).content("[").build());
+        for (WireCodec codec : CODECS) {
+            assertSame(codec, WireCodecs.detect(codec.encodeOps(ops)));
+        }
+        assertSame(WireCodecs.BINARY, WireCodecs.negotiate("binary,json"));
+        assertSame(WireCodecs.JSON, WireCodecs.negotiate("unknown"));
+        assertSame(WireCodecs.JSON, WireCodecs.negotiate(null));
+    }
+
+    static void assertLinesEqual(List<TextLine> expected, List<TextLine> actual, String message) {
+        assertEquals(expected.size(), actual.size(), message);
+        for (int i = 0; i < expected.size(); i++) {
+            TextLine e = expected.get(i);
+            TextLine a = actual.get(i);
+            assertEquals(e.getLineID(), a.getLineID(), message);
+            assertEquals(e.getContent(), a.getContent(), message);
+            assertEquals(e.isLocked(), a.isLocked(), message);
+            assertEquals(e.getLockClientID(), a.getLockClientID(), message);
+            assertEquals(e.getLastEditedMillis(), a.getLastEditedMillis(), message);
+        }
+    }
+
+    private static void assertOpEquals(EventContent expected, EventContent actual, String message) {
+        assertEquals(expected.getType(), actual.getType(), message);
+        assertEquals(expected.getLineId(), actual.getLineId(), message);
+        assertEquals(expected.getNextLineId(), actual.getNextLineId(), message);
+        assertEquals(expected.getSplitIndex(), actual.getSplitIndex(), message);
+        assertEquals(expected.getContent(), actual.getContent(), message);
+        assertEquals(expected.getPosition(), actual.getPosition(), message);
+        assertEquals(expected.getLength(), actual.getLength(), message);
+        assertEquals(expected.getClientId(), actual.getClientId(), message);
+        assertEquals(expected.getRevision(), actual.getRevision(), message);
+        assertEquals(expected.getTimestamp(), actual.getTimestamp(), message);
+    }
+}